@@ -0,0 +1,31 @@
+package com.peradeniya.renal.benchmarks;
+
+import com.peradeniya.renal.model.DischargeSummary;
+import com.peradeniya.renal.service.pdf.PdfService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// One discharge summary render, as done by the PDF render queue
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class DischargeSummaryPdfBenchmark {
+
+    private final PdfService pdfService = new PdfService();
+
+    private DischargeSummary summary;
+
+    @Setup
+    public void setUp() {
+        summary = Fixtures.dischargeSummary(Fixtures.admission(Fixtures.patient()));
+    }
+
+    @Benchmark
+    public byte[] generateDischargeSummaryPdf() {
+        return pdfService.generateDischargeSummaryPdf(summary);
+    }
+}
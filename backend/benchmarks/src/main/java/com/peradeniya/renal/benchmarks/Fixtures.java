@@ -0,0 +1,155 @@
+package com.peradeniya.renal.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.peradeniya.renal.dto.PatientCreateRequest;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.DischargeSummary;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.model.ProgressNote;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Representative ward data, shaped like what the controllers see in production
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    // Same setup Spring Boot applies to the application's ObjectMapper
+    static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    static PatientCreateRequest createRequest() {
+        PatientCreateRequest request = new PatientCreateRequest();
+        request.setPhn("1234-5678-90");
+        request.setName("K. M. Perera");
+        request.setDob(LocalDate.of(1968, 4, 12));
+        request.setSex("Male");
+        request.setAddress("12, Temple Road, Peradeniya");
+        request.setPhone("077 123 4567");
+        request.setNic("681032345V");
+        request.setMohArea("Yatinuwara");
+        request.setEthnicGroup("Sinhala");
+        request.setReligion("Buddhism");
+        request.setOccupation("Teacher");
+        request.setMaritalStatus("Married");
+        request.setWard("Nephrology");
+        request.setWardNumber("W12");
+        request.setBedId("W12-07");
+        request.setAdmissionDate(LocalDate.of(2024, 3, 18));
+        request.setAdmissionTime("08:30");
+        request.setAdmissionType("Emergency");
+        request.setConsultantName("Dr. S. Wijesinghe");
+        request.setReferredBy("OPD");
+        request.setPrimaryDiagnosis("CKD stage 5 with fluid overload");
+        request.setAdmittingOfficer("Dr. N. Silva");
+        request.setPresentingComplaints("Shortness of breath and bilateral ankle oedema for three days");
+        request.setTempC(37.2);
+        request.setHeightCm(168.0);
+        request.setWeightKg(72.5);
+        request.setBmi(25.7);
+        request.setBloodPressure("160/95");
+        request.setHeartRate(92);
+        request.setMedicalProblems(new String[]{"Hypertension", "Type 2 diabetes mellitus"});
+        request.setAllergyProblems(new String[]{"Penicillin"});
+        return request;
+    }
+
+    static Patient patient() {
+        return Patient.builder()
+                .id(1001L)
+                .phn("1234567890")
+                .name("K. M. Perera")
+                .dob(LocalDate.of(1968, 4, 12))
+                .sex("Male")
+                .address("12, Temple Road, Peradeniya")
+                .phone("0771234567")
+                .nic("681032345V")
+                .mohArea("Yatinuwara")
+                .ethnicGroup("Sinhala")
+                .religion("Buddhism")
+                .occupation("Teacher")
+                .maritalStatus("Married")
+                .status("Admitted")
+                .build();
+    }
+
+    static Admission admission(Patient patient) {
+        Admission admission = Admission.builder()
+                .id(2001L)
+                .bhtNumber("BHT-2024-00457")
+                .number(3)
+                .active(true)
+                .admittedOn(LocalDate.of(2024, 3, 18))
+                .admissionTime(LocalDateTime.of(2024, 3, 18, 8, 30))
+                .ward("Nephrology")
+                .wardNumber("W12")
+                .bedId("W12-07")
+                .consultantName("Dr. S. Wijesinghe")
+                .referredBy("OPD")
+                .primaryDiagnosis("CKD stage 5 with fluid overload")
+                .admissionType("Emergency")
+                .admittingOfficer("Dr. N. Silva")
+                .presentingComplaints("Shortness of breath and bilateral ankle oedema for three days")
+                .examTempC(37.2)
+                .examHeightCm(168.0)
+                .examWeightKg(72.5)
+                .examBMI(25.7)
+                .examBloodPressure("160/95")
+                .examHeartRate(92)
+                .patient(patient)
+                .build();
+        patient.getAdmissions().add(admission);
+        return admission;
+    }
+
+    // Four-hourly observations, as charted on the ward
+    static List<ProgressNote> progressNotes(Admission admission, int count) {
+        List<ProgressNote> notes = new ArrayList<>(count);
+        LocalDateTime time = admission.getAdmissionTime();
+        for (int i = 0; i < count; i++) {
+            notes.add(ProgressNote.builder()
+                    .id(5000L + i)
+                    .createdAt(time.plusHours(4L * i))
+                    .tempC(36.6 + (i % 7) * 0.1)
+                    .weightKg(72.5 - i * 0.05)
+                    .bpHigh(130 + i % 30)
+                    .bpLow(80 + i % 15)
+                    .heartRate(70 + i % 25)
+                    .inputMl(400 + (i % 5) * 50)
+                    .urineOutputMl(250 + (i % 4) * 40)
+                    .pdBalance(-150 + (i % 6) * 20)
+                    .totalBalance(100 - (i % 9) * 15)
+                    .admission(admission)
+                    .build());
+        }
+        return notes;
+    }
+
+    static DischargeSummary dischargeSummary(Admission admission) {
+        DischargeSummary summary = DischargeSummary.builder()
+                .id(3001L)
+                .dischargeDate(LocalDate.of(2024, 3, 27))
+                .diagnosis("CKD stage 5 with fluid overload; hypertension")
+                .icd10("N18.5")
+                .progressSummary("Admitted with fluid overload. Commenced on CAPD after catheter insertion on day 2. "
+                        + "Fluid balance negative from day 3 with resolution of oedema. Blood pressure controlled "
+                        + "on amlodipine and losartan. No peritonitis during admission.")
+                .management("CAPD 4 exchanges daily, fluid restriction 1 L/day, low potassium diet.")
+                .dischargePlan("Review at renal clinic in two weeks with serum creatinine, potassium and Hb.")
+                .drugsFreeHand("Amlodipine 10 mg nocte\nLosartan 50 mg bd\nFurosemide 80 mg mane\n"
+                        + "Calcium carbonate 500 mg tds with meals\nErythropoietin 4000 IU twice weekly")
+                .admission(admission)
+                .patient(admission.getPatient())
+                .build();
+        admission.setDischargeSummary(summary);
+        return summary;
+    }
+}
@@ -0,0 +1,47 @@
+package com.peradeniya.renal.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.peradeniya.renal.dto.PatientResponse;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.model.ProgressNote;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Response bodies of GET /patients?phn= and GET .../progress-notes
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class JsonSerializationBenchmark {
+
+    @Param({"50", "500"})
+    private int notes;
+
+    private ObjectMapper objectMapper;
+    private PatientResponse patientResponse;
+    private List<ProgressNote> progressNotes;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Fixtures.objectMapper();
+        Patient patient = Fixtures.patient();
+        Admission admission = Fixtures.admission(patient);
+        patientResponse = PatientResponse.from(patient, admission);
+        progressNotes = Fixtures.progressNotes(admission, notes);
+    }
+
+    @Benchmark
+    public byte[] patientResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(patientResponse);
+    }
+
+    @Benchmark
+    public byte[] progressNotes() throws Exception {
+        return objectMapper.writeValueAsBytes(progressNotes);
+    }
+}
@@ -0,0 +1,46 @@
+package com.peradeniya.renal.benchmarks;
+
+import com.peradeniya.renal.dto.PatientCreateRequest;
+import com.peradeniya.renal.mapper.PatientMapper;
+import com.peradeniya.renal.model.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Request mapping done by POST /patients before anything touches the database
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PatientMapperBenchmark {
+
+    private final PatientMapper mapper = new PatientMapper();
+
+    private PatientCreateRequest request;
+    private PatientCreateRequest isoTimeRequest;
+
+    @Setup
+    public void setUp() {
+        request = Fixtures.createRequest();
+        isoTimeRequest = Fixtures.createRequest();
+        isoTimeRequest.setAdmissionTime("2024-03-18T08:30:00");
+    }
+
+    @Benchmark
+    public Patient toPatient() {
+        return mapper.toPatient(request);
+    }
+
+    @Benchmark
+    public LocalDateTime admissionTimeHourMinute() {
+        return request.getAdmissionTimeAsLocalDateTime();
+    }
+
+    @Benchmark
+    public LocalDateTime admissionTimeIso() {
+        return isoTimeRequest.getAdmissionTimeAsLocalDateTime();
+    }
+}
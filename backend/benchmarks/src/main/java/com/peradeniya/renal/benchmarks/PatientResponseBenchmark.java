@@ -0,0 +1,37 @@
+package com.peradeniya.renal.benchmarks;
+
+import com.peradeniya.renal.dto.PatientResponse;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// PatientResponse.from runs for every patient lookup and every entry of the patient lists
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PatientResponseBenchmark {
+
+    private Patient patient;
+    private Admission admission;
+
+    @Setup
+    public void setUp() {
+        patient = Fixtures.patient();
+        admission = Fixtures.admission(patient);
+    }
+
+    @Benchmark
+    public PatientResponse fromWithAdmission() {
+        return PatientResponse.from(patient, admission);
+    }
+
+    @Benchmark
+    public PatientResponse fromWithoutAdmission() {
+        return PatientResponse.from(patient, null);
+    }
+}
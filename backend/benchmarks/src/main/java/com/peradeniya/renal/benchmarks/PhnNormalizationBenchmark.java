@@ -0,0 +1,50 @@
+package com.peradeniya.renal.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * PHN clean-up done by the services, cache and bloom filter (several times per request).
+ * replaceAll compiles its pattern on every call; the other variants show what that costs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class PhnNormalizationBenchmark {
+
+    private static final Pattern NON_DIGITS = Pattern.compile("[^0-9]");
+
+    @Param({"1234567890", "1234-5678-90", " PHN 1234 5678 90 "})
+    private String phn;
+
+    @Benchmark
+    public String replaceAll() {
+        return phn.replaceAll("[^0-9]", "");
+    }
+
+    @Benchmark
+    public String precompiledPattern() {
+        return NON_DIGITS.matcher(phn).replaceAll("");
+    }
+
+    @Benchmark
+    public String charLoop() {
+        StringBuilder digits = null;
+        for (int i = 0; i < phn.length(); i++) {
+            char c = phn.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (digits != null) {
+                    digits.append(c);
+                }
+            } else if (digits == null) {
+                digits = new StringBuilder(phn.length()).append(phn, 0, i);
+            }
+        }
+        return digits != null ? digits.toString() : phn;
+    }
+}
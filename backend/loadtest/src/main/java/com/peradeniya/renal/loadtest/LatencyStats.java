@@ -0,0 +1,84 @@
+package com.peradeniya.renal.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Per-operation latency histograms (nanoseconds) and error counts, safe for concurrent workers
+class LatencyStats {
+
+    static final String ALL = "all";
+
+    private final Map<Operation, Recorder> recorders = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+
+    LatencyStats() {
+        for (Operation operation : Operation.values()) {
+            recorders.put(operation, new Recorder(3));
+            errors.put(operation, new LongAdder());
+        }
+    }
+
+    void record(Operation operation, long latencyNanos, boolean ok) {
+        if (ok) {
+            recorders.get(operation).recordValue(latencyNanos);
+        } else {
+            errors.get(operation).increment();
+        }
+    }
+
+    // Drops everything recorded so far (end of warmup)
+    void reset() {
+        recorders.values().forEach(Recorder::getIntervalHistogram);
+        errors.values().forEach(LongAdder::reset);
+    }
+
+    // One row per operation that ran, then an "all" row over every request
+    List<Map<String, Object>> summarize(double seconds) {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        for (Operation operation : Operation.values()) {
+            Histogram histogram = recorders.get(operation).getIntervalHistogram();
+            long errorCount = errors.get(operation).sum();
+            if (histogram.getTotalCount() == 0 && errorCount == 0) {
+                continue;
+            }
+            rows.add(row(operation.label(), histogram, errorCount, seconds));
+            all.add(histogram);
+            allErrors += errorCount;
+        }
+        if (rows.size() > 1) {
+            rows.add(row(ALL, all, allErrors, seconds));
+        }
+        return rows;
+    }
+
+    private static Map<String, Object> row(String endpoint, Histogram histogram, long errorCount, double seconds) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("endpoint", endpoint);
+        row.put("count", histogram.getTotalCount());
+        row.put("errors", errorCount);
+        row.put("throughputPerSec", round(histogram.getTotalCount() / seconds));
+        row.put("meanMs", millis(histogram.getMean()));
+        row.put("p50Ms", millis(histogram.getValueAtPercentile(50)));
+        row.put("p95Ms", millis(histogram.getValueAtPercentile(95)));
+        row.put("p99Ms", millis(histogram.getValueAtPercentile(99)));
+        row.put("maxMs", millis(histogram.getMaxValue()));
+        return row;
+    }
+
+    private static double millis(double nanos) {
+        return round(nanos / 1_000_000.0);
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
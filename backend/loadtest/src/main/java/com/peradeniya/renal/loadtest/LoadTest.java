@@ -0,0 +1,264 @@
+package com.peradeniya.renal.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.peradeniya.renal.RenalApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots RenalApplication on an in-memory H2 database, seeds patients, then drives the ward mix
+ * (see {@link WardScenario}) for the configured time and reports per-endpoint latency percentiles
+ * on the console and as JSON. With loadtest.threads=platform,virtual the whole run is repeated in each
+ * request thread mode and the results are compared. Settings: {@link LoadTestSettings}.
+ */
+public class LoadTest {
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+        // The application logs to stdout; keep it out of the report
+        PrintStream console = System.out;
+        Files.createDirectories(settings.appLog().toAbsolutePath().getParent());
+        PrintStream appLog = new PrintStream(new BufferedOutputStream(new FileOutputStream(settings.appLog().toFile())), true);
+        System.setOut(appLog);
+
+        try {
+            // One run per requested thread mode, each on a freshly booted application and database
+            List<String> modes = settings.threadModes().isEmpty()
+                    ? Collections.singletonList(null)
+                    : settings.threadModes();
+            List<Map<String, Object>> results = new ArrayList<>();
+            for (String mode : modes) {
+                results.add(run(settings, mode, console, args));
+            }
+            if (results.size() > 1) {
+                printComparison(console, results);
+            }
+            writeResult(settings, results);
+            console.println("Results written to " + settings.resultFile());
+        } finally {
+            System.setOut(console);
+            appLog.close();
+        }
+    }
+
+    private static Map<String, Object> run(LoadTestSettings settings, String threadMode, PrintStream console,
+                                           String[] args) throws Exception {
+        console.println("Starting application" + (threadMode != null ? " on " + threadMode + " threads" : "")
+                + " (console output in " + settings.appLog() + ")");
+        Map<String, Object> overrides = new LinkedHashMap<>();
+        if (threadMode != null) {
+            overrides.put("spring.threads.virtual.enabled", String.valueOf(threadMode.equals(LoadTestSettings.VIRTUAL)));
+        }
+        String database = threadMode != null ? "loadtest-" + threadMode : "loadtest";
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RenalApplication.class)
+                .initializers(applicationContext -> {
+                    MutablePropertySources sources = applicationContext.getEnvironment().getPropertySources();
+                    sources.addFirst(new MapPropertySource("loadtest-threads", overrides));
+                    sources.addAfter(StandardEnvironment.SYSTEM_PROPERTIES_PROPERTY_SOURCE_NAME,
+                            new MapPropertySource("loadtest", embeddedDatabaseSettings(database, settings)));
+                })
+                .run(args);
+        try {
+            boolean virtual = context.getEnvironment().getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            WardScenario scenario = new WardScenario(port);
+
+            console.println("Seeding " + settings.seedPatients() + " admitted and "
+                    + settings.seedDischarged() + " discharged patients");
+            scenario.seed(settings.seedPatients(), settings.seedDischarged());
+
+            Map<Operation, Integer> mix = new EnumMap<>(settings.mix());
+            mix.keySet().removeIf(operation -> !scenario.supports(operation));
+            LatencyStats stats = new LatencyStats();
+
+            if (!settings.warmup().isZero()) {
+                console.println("Warming up for " + settings.warmup());
+                drive(scenario, stats, mix, settings, settings.warmup());
+                stats.reset();
+            }
+
+            console.println("Running " + mix + " with " + settings.concurrency() + " workers for " + settings.duration()
+                    + (settings.rate() > 0 ? " at " + settings.rate() + " req/s" : " (closed loop)")
+                    + " against " + (virtual ? LoadTestSettings.VIRTUAL : LoadTestSettings.PLATFORM) + " request threads");
+            long start = System.nanoTime();
+            long failures = drive(scenario, stats, mix, settings, settings.duration());
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            List<Map<String, Object>> rows = stats.summarize(seconds);
+            print(console, rows);
+            if (failures > 0) {
+                console.println(failures + " requests failed with an exception (see " + settings.appLog() + ")");
+            }
+
+            Map<String, Object> run = new LinkedHashMap<>();
+            run.put("finishedAt", Instant.now().toString());
+            run.put("threads", virtual ? LoadTestSettings.VIRTUAL : LoadTestSettings.PLATFORM);
+            run.put("concurrency", settings.concurrency());
+            run.put("rate", settings.rate());
+            run.put("durationSec", Math.round(seconds * 10) / 10.0);
+            run.put("mix", mix);
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("run", run);
+            result.put("endpoints", rows);
+            return result;
+        } finally {
+            context.close();
+        }
+    }
+
+    // Override application.properties; system properties and arguments still win
+    private static Map<String, Object> embeddedDatabaseSettings(String database, LoadTestSettings settings) {
+        Map<String, Object> defaults = new LinkedHashMap<>();
+        defaults.put("server.port", "0");
+        defaults.put("spring.datasource.url", "jdbc:h2:mem:" + database + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        defaults.put("spring.datasource.username", "sa");
+        defaults.put("spring.datasource.password", "");
+        // Blank rather than H2Dialect: Hibernate detects H2 itself, and warns when it is named
+        defaults.put("spring.jpa.database-platform", "");
+        defaults.put("spring.jpa.hibernate.ddl-auto", "create");
+        defaults.put("renal.pdf.store-dir", settings.resultFile().toAbsolutePath().resolveSibling("loadtest-pdf").toString());
+        return defaults;
+    }
+
+    /**
+     * Runs the mix on the configured number of workers until the time is up. Exceptions (timeouts,
+     * refused connections) are counted as errors of the operation and returned as a total.
+     */
+    private static long drive(WardScenario scenario, LatencyStats stats, Map<Operation, Integer> mix,
+                              LoadTestSettings settings, Duration length) throws InterruptedException {
+        Operation[] operations = mix.keySet().toArray(new Operation[0]);
+        int[] cumulative = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += mix.get(operations[i]);
+            cumulative[i] = total;
+        }
+        int totalWeight = total;
+
+        int workers = settings.concurrency();
+        long interval = settings.rate() > 0 ? (long) (1e9 * workers / settings.rate()) : 0;
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        AtomicLong failures = new AtomicLong();
+
+        ExecutorService pool = Executors.newFixedThreadPool(workers);
+        for (int w = 0; w < workers; w++) {
+            long firstStart = start + (interval * w) / workers;
+            pool.execute(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long next = firstStart;
+                while (true) {
+                    long intended;
+                    if (interval > 0) {
+                        intended = next;
+                        next += interval;
+                        if (intended >= end) {
+                            break;
+                        }
+                        long wait;
+                        while ((wait = intended - System.nanoTime()) > 0) {
+                            LockSupport.parkNanos(wait);
+                        }
+                    } else {
+                        intended = System.nanoTime();
+                        if (intended >= end) {
+                            break;
+                        }
+                    }
+
+                    int roll = random.nextInt(totalWeight);
+                    int index = 0;
+                    while (roll >= cumulative[index]) {
+                        index++;
+                    }
+                    Operation operation = operations[index];
+                    boolean ok;
+                    try {
+                        ok = scenario.execute(operation, random);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    } catch (Exception e) {
+                        failures.incrementAndGet();
+                        ok = false;
+                    }
+                    stats.record(operation, System.nanoTime() - intended, ok);
+                }
+            });
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(length.toSeconds() + 120, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+        }
+        return failures.get();
+    }
+
+    private static void print(PrintStream out, List<Map<String, Object>> rows) {
+        String format = "%-34s %9s %7s %9s %9s %9s %9s %9s%n";
+        out.println();
+        out.printf(format, "Endpoint", "Count", "Errors", "Req/s", "p50 ms", "p95 ms", "p99 ms", "Max ms");
+        for (Map<String, Object> row : rows) {
+            out.printf(format, row.get("endpoint"), row.get("count"), row.get("errors"), row.get("throughputPerSec"),
+                    row.get("p50Ms"), row.get("p95Ms"), row.get("p99Ms"), row.get("maxMs"));
+        }
+        out.println();
+    }
+
+    // Each endpoint's throughput and latency side by side for every run
+    @SuppressWarnings("unchecked")
+    private static void printComparison(PrintStream out, List<Map<String, Object>> results) {
+        Map<String, List<Map<String, Object>>> byEndpoint = new LinkedHashMap<>();
+        for (Map<String, Object> result : results) {
+            String threads = (String) ((Map<String, Object>) result.get("run")).get("threads");
+            for (Map<String, Object> row : (List<Map<String, Object>>) result.get("endpoints")) {
+                Map<String, Object> entry = new LinkedHashMap<>(row);
+                entry.put("threads", threads);
+                byEndpoint.computeIfAbsent((String) row.get("endpoint"), k -> new ArrayList<>()).add(entry);
+            }
+        }
+        String format = "%-34s %-9s %9s %7s %9s %9s %9s %9s%n";
+        out.println("Comparison");
+        out.printf(format, "Endpoint", "Threads", "Req/s", "Errors", "p50 ms", "p95 ms", "p99 ms", "Max ms");
+        byEndpoint.forEach((endpoint, entries) -> {
+            for (Map<String, Object> e : entries) {
+                out.printf(format, endpoint, e.get("threads"), e.get("throughputPerSec"), e.get("errors"),
+                        e.get("p50Ms"), e.get("p95Ms"), e.get("p99Ms"), e.get("maxMs"));
+            }
+        });
+        out.println();
+    }
+
+    // A single run is written as {run, endpoints}; several as {runs: [...]}
+    private static void writeResult(LoadTestSettings settings, List<Map<String, Object>> results) throws Exception {
+        Object document = results.size() == 1 ? results.get(0) : Map.of("runs", results);
+        Files.createDirectories(settings.resultFile().toAbsolutePath().getParent());
+        new ObjectMapper()
+                .enable(SerializationFeature.INDENT_OUTPUT)
+                .writeValue(settings.resultFile().toFile(), document);
+    }
+}
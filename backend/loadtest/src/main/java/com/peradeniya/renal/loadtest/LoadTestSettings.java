@@ -0,0 +1,94 @@
+package com.peradeniya.renal.loadtest;
+
+import org.springframework.boot.convert.DurationStyle;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Load test settings, read from system properties (-D on the mvn command line):
+ * <ul>
+ *   <li>loadtest.concurrency - worker threads, default 16</li>
+ *   <li>loadtest.duration / loadtest.warmup - measured and discarded run time, default 60s / 10s</li>
+ *   <li>loadtest.rate - total requests per second, 0 (default) runs closed loop as fast as the workers go.
+ *       With a rate, latency is measured from each request's scheduled start so stalls are not hidden.</li>
+ *   <li>loadtest.seed-patients / loadtest.seed-discharged - admitted and discharged patients created up front</li>
+ *   <li>loadtest.mix - relative weights, default register:5,lookup:40,admissions:25,note:25,pdf:5</li>
+ *   <li>loadtest.threads - platform, virtual, or platform,virtual to run the same load once in each request
+ *       thread mode (spring.threads.virtual.enabled) and compare them. Unset, the application's setting is used.</li>
+ *   <li>loadtest.result-file - JSON results, default target/loadtest-result.json</li>
+ *   <li>loadtest.app-log - where the application's console output goes, default target/loadtest-app.log</li>
+ * </ul>
+ * Any other system property (e.g. spring.jpa.show-sql=false) is seen by the application itself.
+ */
+record LoadTestSettings(int concurrency,
+                        Duration duration,
+                        Duration warmup,
+                        double rate,
+                        int seedPatients,
+                        int seedDischarged,
+                        Map<Operation, Integer> mix,
+                        List<String> threadModes,
+                        Path resultFile,
+                        Path appLog) {
+
+    static final String DEFAULT_MIX = "register:5,lookup:40,admissions:25,note:25,pdf:5";
+    static final String PLATFORM = "platform";
+    static final String VIRTUAL = "virtual";
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings(
+                Integer.getInteger("loadtest.concurrency", 16),
+                duration("loadtest.duration", "60s"),
+                duration("loadtest.warmup", "10s"),
+                Double.parseDouble(System.getProperty("loadtest.rate", "0")),
+                Integer.getInteger("loadtest.seed-patients", 200),
+                Integer.getInteger("loadtest.seed-discharged", 20),
+                parseMix(System.getProperty("loadtest.mix", DEFAULT_MIX)),
+                parseThreadModes(System.getProperty("loadtest.threads", "")),
+                Path.of(System.getProperty("loadtest.result-file", "target/loadtest-result.json")),
+                Path.of(System.getProperty("loadtest.app-log", "target/loadtest-app.log")));
+    }
+
+    static Map<Operation, Integer> parseMix(String value) {
+        Map<Operation, Integer> mix = new EnumMap<>(Operation.class);
+        for (String part : value.split(",")) {
+            String[] entry = part.trim().split(":");
+            if (entry.length != 2) {
+                throw new IllegalArgumentException("Invalid loadtest.mix entry: " + part);
+            }
+            int weight = Integer.parseInt(entry[1].trim());
+            if (weight > 0) {
+                mix.put(Operation.valueOf(entry[0].trim().toUpperCase(Locale.ROOT)), weight);
+            }
+        }
+        if (mix.isEmpty()) {
+            throw new IllegalArgumentException("loadtest.mix has no positive weights: " + value);
+        }
+        return mix;
+    }
+
+    static List<String> parseThreadModes(String value) {
+        List<String> modes = new ArrayList<>();
+        for (String part : value.split(",")) {
+            String mode = part.trim().toLowerCase(Locale.ROOT);
+            if (mode.isEmpty()) {
+                continue;
+            }
+            if (!mode.equals(PLATFORM) && !mode.equals(VIRTUAL)) {
+                throw new IllegalArgumentException("Invalid loadtest.threads entry (platform or virtual): " + part);
+            }
+            modes.add(mode);
+        }
+        return modes;
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+}
@@ -0,0 +1,20 @@
+package com.peradeniya.renal.loadtest;
+
+// Request types replayed by the load test; the label is what the report shows
+enum Operation {
+    REGISTER("POST /patients"),
+    LOOKUP("GET /patients?phn="),
+    ADMISSIONS("GET /patients/{phn}/admissions"),
+    NOTE("POST .../progress-notes"),
+    PDF("GET .../discharge-summary/pdf");
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    String label() {
+        return label;
+    }
+}
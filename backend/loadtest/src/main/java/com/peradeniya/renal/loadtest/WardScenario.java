@@ -0,0 +1,236 @@
+package com.peradeniya.renal.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The ward workload: registrations, PHN lookups, admission lists, progress notes and discharge
+ * summary PDF downloads, issued over HTTP against a running application.
+ * Patients used by lookups, notes and downloads are created by {@link #seed} before the run.
+ *
+ * Registrations only take beds the ward census reports free, and discharged patients give theirs back.
+ * Once every bed is taken, new patients are admitted without a bed, as if waiting for one.
+ */
+class WardScenario {
+
+    private static final int MIN_WARDS = 4;
+    // Seeded admitted patients fill about this share of the beds, leaving room for registrations
+    private static final double SEED_OCCUPANCY = 0.75;
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final AtomicLong nextPhn = new AtomicLong(9_000_000_000L);
+
+    private final List<SeededAdmission> admitted = new ArrayList<>();
+    private final List<SeededAdmission> discharged = new ArrayList<>();
+    private final Queue<Bed> freeBeds = new ConcurrentLinkedQueue<>();
+
+    // bed is null for a patient admitted without one
+    record SeededAdmission(String phn, long admissionId, Bed bed) {
+    }
+
+    record Bed(String ward, int number) {
+    }
+
+    private record Registration(Bed bed, HttpResponse<byte[]> response) {
+    }
+
+    WardScenario(int port) {
+        this.baseUrl = "http://localhost:" + port;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+    }
+
+    void seed(int patients, int dischargedPatients) throws IOException, InterruptedException {
+        loadFreeBeds(patients);
+        for (int i = 0; i < patients; i++) {
+            admitted.add(admitNewPatient());
+        }
+        for (int i = 0; i < dischargedPatients; i++) {
+            SeededAdmission admission = admitNewPatient();
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("dischargeDate", LocalDate.now().toString());
+            summary.put("diagnosis", "CKD stage 5 with fluid overload");
+            summary.put("icd10", "N18.5");
+            summary.put("progressSummary", "Fluid balance negative from day 3 with resolution of oedema. "
+                    + "Commenced on CAPD; no peritonitis during admission.");
+            summary.put("management", "CAPD 4 exchanges daily, fluid restriction 1 L/day.");
+            summary.put("dischargePlan", "Renal clinic review in two weeks.");
+            summary.put("drugsFreeHand", "Amlodipine 10 mg nocte\nFurosemide 80 mg mane");
+            expectOk(send(post(admissionPath(admission) + "/discharge-summary", summary)), "discharge summary");
+            discharged.add(admission);
+            if (admission.bed() != null) {
+                freeBeds.add(admission.bed());
+            }
+        }
+    }
+
+    // Enough wards for the seeded patients to fill about SEED_OCCUPANCY of their beds; free beds come from the census
+    private void loadFreeBeds(int patients) throws IOException, InterruptedException {
+        int capacity = -1;
+        int wards = MIN_WARDS;
+        for (int i = 1; i <= wards; i++) {
+            String ward = "W" + i;
+            JsonNode census = objectMapper.readTree(expectOk(send(get("/wards/" + ward + "/census")), "census").body());
+            if (capacity < 0) {
+                capacity = Math.max(1, census.path("capacity").asInt());
+                wards = Math.max(MIN_WARDS, (int) Math.ceil(patients / (capacity * SEED_OCCUPANCY)));
+            }
+            for (JsonNode bed : census.path("freeBeds")) {
+                freeBeds.add(new Bed(ward, bed.asInt()));
+            }
+        }
+    }
+
+    // Issues one request of the given type; returns false on a non-2xx answer
+    boolean execute(Operation operation, Random random) throws IOException, InterruptedException {
+        HttpResponse<byte[]> response = switch (operation) {
+            case REGISTER -> register(nextPhn.getAndIncrement()).response();
+            case LOOKUP -> send(get("/patients?phn=" + anyPatient(random).phn()));
+            case ADMISSIONS -> send(get("/patients/" + anyPatient(random).phn() + "/admissions"));
+            case NOTE -> send(post(admissionPath(pick(admitted, random)) + "/progress-notes", progressNote(random)));
+            case PDF -> send(get(admissionPath(pick(discharged, random)) + "/discharge-summary/pdf"));
+        };
+        return isOk(response);
+    }
+
+    // Operations that cannot run with the seeded data (e.g. pdf without discharged patients)
+    boolean supports(Operation operation) {
+        return switch (operation) {
+            case REGISTER -> true;
+            case LOOKUP, ADMISSIONS -> !admitted.isEmpty() || !discharged.isEmpty();
+            case NOTE -> !admitted.isEmpty();
+            case PDF -> !discharged.isEmpty();
+        };
+    }
+
+    private SeededAdmission admitNewPatient() throws IOException, InterruptedException {
+        long phn = nextPhn.getAndIncrement();
+        Registration registration = register(phn);
+        expectOk(registration.response(), "registration");
+        HttpResponse<byte[]> lookup = expectOk(send(get("/patients?phn=" + phn)), "lookup");
+        JsonNode patient = objectMapper.readTree(lookup.body());
+        return new SeededAdmission(String.valueOf(phn), patient.path("admissionId").asLong(), registration.bed());
+    }
+
+    // Takes a free bed if there is one; a failed registration gives it back
+    private Registration register(long phn) throws IOException, InterruptedException {
+        Bed bed = freeBeds.poll();
+        HttpResponse<byte[]> response;
+        try {
+            response = send(post("/patients", registration(phn, bed)));
+        } catch (IOException | RuntimeException e) {
+            if (bed != null) {
+                freeBeds.add(bed);
+            }
+            throw e;
+        }
+        if (!isOk(response) && bed != null) {
+            freeBeds.add(bed);
+        }
+        return new Registration(bed, response);
+    }
+
+    private Map<String, Object> registration(long phn, Bed bed) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("phn", String.valueOf(phn));
+        request.put("name", "Load Test " + phn);
+        request.put("dob", LocalDate.of(1960, 1, 1).plusDays(phn % 15000).toString());
+        request.put("sex", phn % 2 == 0 ? "Male" : "Female");
+        request.put("address", "12, Temple Road, Peradeniya");
+        request.put("phone", "0771234567");
+        request.put("ward", "Nephrology");
+        if (bed != null) {
+            request.put("wardNumber", bed.ward());
+            request.put("bedId", String.valueOf(bed.number()));
+        } else {
+            request.put("wardNumber", "W" + (1 + phn % MIN_WARDS));
+        }
+        request.put("admissionDate", LocalDate.now().toString());
+        request.put("admissionTime", "08:30");
+        request.put("admissionType", "Emergency");
+        request.put("consultantName", "Dr. S. Wijesinghe");
+        request.put("primaryDiagnosis", "CKD stage 5");
+        request.put("presentingComplaints", "Shortness of breath and ankle oedema");
+        request.put("tempC", 37.2);
+        request.put("weightKg", 72.5);
+        request.put("bloodPressure", "160/95");
+        request.put("heartRate", 92);
+        request.put("medicalProblems", List.of("Hypertension"));
+        request.put("allergyProblems", List.of());
+        return request;
+    }
+
+    private static Map<String, Object> progressNote(Random random) {
+        Map<String, Object> note = new LinkedHashMap<>();
+        note.put("tempC", 36.5 + random.nextInt(20) / 10.0);
+        note.put("weightKg", 65 + random.nextInt(200) / 10.0);
+        note.put("bpHigh", 110 + random.nextInt(60));
+        note.put("bpLow", 65 + random.nextInt(30));
+        note.put("heartRate", 60 + random.nextInt(50));
+        note.put("inputMl", 100 + random.nextInt(400));
+        note.put("urineOutputMl", random.nextInt(400));
+        note.put("pdBalance", random.nextInt(400) - 200);
+        note.put("totalBalance", random.nextInt(600) - 300);
+        return note;
+    }
+
+    private SeededAdmission anyPatient(Random random) {
+        int index = random.nextInt(admitted.size() + discharged.size());
+        return index < admitted.size() ? admitted.get(index) : discharged.get(index - admitted.size());
+    }
+
+    private static SeededAdmission pick(List<SeededAdmission> admissions, Random random) {
+        return admissions.get(random.nextInt(admissions.size()));
+    }
+
+    private static String admissionPath(SeededAdmission admission) {
+        return "/patients/" + admission.phn() + "/admissions/" + admission.admissionId();
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path)).GET().build();
+    }
+
+    private HttpRequest post(String path, Object body) throws IOException {
+        return HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        return client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private static boolean isOk(HttpResponse<?> response) {
+        return response.statusCode() / 100 == 2;
+    }
+
+    private static HttpResponse<byte[]> expectOk(HttpResponse<byte[]> response, String what) {
+        if (!isOk(response)) {
+            throw new IllegalStateException("Seeding " + what + " failed: HTTP " + response.statusCode()
+                    + " " + new String(response.body()));
+        }
+        return response;
+    }
+}
@@ -0,0 +1,61 @@
+package com.peradeniya.renal.config;
+
+import com.peradeniya.renal.model.Admission;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.ResultSet;
+import java.util.List;
+
+/**
+ * Enforces one active admission per patient on databases that predate the constraint. Patients with
+ * several active admissions keep the newest one active, and the older ones are closed. Then the
+ * unique index on the generated active_patient_id column is created, which schema update skips
+ * while duplicates exist. Safe to run on every start.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class ActiveAdmissionMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        List<Long> superseded = jdbcTemplate.queryForList(
+                "select a.id from admission a where a.active = true and exists "
+                        + "(select 1 from admission b where b.patient_id = a.patient_id and b.active = true and b.id > a.id)",
+                Long.class);
+        for (Long id : superseded) {
+            jdbcTemplate.update("update admission set active = false, version = coalesce(version, 0) + 1 where id = ?", id);
+        }
+        if (!superseded.isEmpty()) {
+            log.warn("Closed {} duplicate active admissions, keeping each patient's newest: {}", superseded.size(), superseded);
+        }
+
+        if (!hasActivePatientIndex()) {
+            jdbcTemplate.execute("alter table admission add constraint " + Admission.ACTIVE_PATIENT_CONSTRAINT
+                    + " unique (active_patient_id)");
+            log.info("Created unique constraint {}", Admission.ACTIVE_PATIENT_CONSTRAINT);
+        }
+    }
+
+    private boolean hasActivePatientIndex() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, "admission", true, false)) {
+                while (indexes.next()) {
+                    if ("active_patient_id".equalsIgnoreCase(indexes.getString("COLUMN_NAME"))) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
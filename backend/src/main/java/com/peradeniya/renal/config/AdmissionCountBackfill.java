@@ -0,0 +1,77 @@
+package com.peradeniya.renal.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One-off backfill for databases that predate Patient.admissionCount (renal.admission-count.backfill=true
+ * for a single start, with no other node taking admissions). Numbers every patient's admissions 1, 2, ...
+ * by admission date in one pass over admission ordered by patient, and sets each patient's admission_count
+ * to their total. It recomputes from scratch, so running it again gives the same result.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@ConditionalOnProperty("renal.admission-count.backfill")
+@RequiredArgsConstructor
+public class AdmissionCountBackfill {
+
+    private static final int BATCH_SIZE = 500;
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void backfill() {
+        List<Object[]> admissionUpdates = new ArrayList<>();
+        List<Object[]> patientUpdates = new ArrayList<>();
+        long[] current = {-1, 0}; // patient id, admissions seen for it
+        int[] changed = {0};
+
+        JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getDataSource());
+        streaming.setFetchSize(FETCH_SIZE);
+        streaming.query("select id, patient_id, number from admission where patient_id is not null "
+                + "order by patient_id, admitted_on, admission_time, id", (RowCallbackHandler) rs -> {
+            long patientId = rs.getLong("patient_id");
+            if (patientId != current[0]) {
+                if (current[0] >= 0) {
+                    patientUpdates.add(new Object[]{current[1], current[0]});
+                }
+                current[0] = patientId;
+                current[1] = 0;
+            }
+            int number = (int) ++current[1];
+            if (rs.getInt("number") != number) {
+                admissionUpdates.add(new Object[]{number, rs.getLong("id")});
+                changed[0]++;
+            }
+            flush(admissionUpdates, patientUpdates, BATCH_SIZE);
+        });
+        if (current[0] >= 0) {
+            patientUpdates.add(new Object[]{current[1], current[0]});
+        }
+        flush(admissionUpdates, patientUpdates, 1);
+
+        log.info("Backfilled admission counts: {} admissions renumbered", changed[0]);
+    }
+
+    private void flush(List<Object[]> admissionUpdates, List<Object[]> patientUpdates, int threshold) {
+        if (admissionUpdates.size() >= threshold) {
+            jdbcTemplate.batchUpdate("update admission set number = ? where id = ?", admissionUpdates);
+            admissionUpdates.clear();
+        }
+        if (patientUpdates.size() >= threshold) {
+            jdbcTemplate.batchUpdate("update patient set admission_count = ? where id = ?", patientUpdates);
+            patientUpdates.clear();
+        }
+    }
+}
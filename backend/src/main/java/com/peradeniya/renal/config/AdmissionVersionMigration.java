@@ -0,0 +1,29 @@
+package com.peradeniya.renal.config;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Admissions created before Admission had a @Version column get version 0; a null version would make
+ * every versioned update of those rows fail as a conflict. Safe to run on every start.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class AdmissionVersionMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        int updated = jdbcTemplate.update("update admission set version = 0 where version is null");
+        if (updated > 0) {
+            log.info("Initialised the version of {} existing admissions", updated);
+        }
+    }
+}
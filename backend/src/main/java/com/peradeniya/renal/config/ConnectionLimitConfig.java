@@ -0,0 +1,67 @@
+package com.peradeniya.renal.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * With virtual threads every request gets its own thread, so thousands of them can reach the pool at
+ * once. When renal.datasource.connection-limit.enabled is set (it follows spring.threads.virtual.enabled
+ * by default) the application DataSource is wrapped in a {@link ConnectionLimitingDataSource} with as
+ * many permits as the Hikari pool has connections.
+ */
+@Slf4j
+@Configuration
+public class ConnectionLimitConfig {
+
+    @Bean
+    static BeanPostProcessor connectionLimitPostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof HikariDataSource hikari) || !enabled(environment)) {
+                    return bean;
+                }
+                int permits = environment.getProperty("renal.datasource.connection-limit.permits", Integer.class, 0);
+                if (permits <= 0) {
+                    permits = hikari.getMaximumPoolSize();
+                }
+                Duration timeout = environment.getProperty("renal.datasource.connection-limit.timeout", Duration.class,
+                        Duration.ofMillis(hikari.getConnectionTimeout()));
+                log.info("Limiting data source {} to {} concurrent connections", beanName, permits);
+                return new ConnectionLimitingDataSource(hikari, permits, timeout);
+            }
+        };
+    }
+
+    // Tagged with the bean name: dataSource, or primaryDataSource / replicaDataSource with a read replica
+    @Bean
+    MeterBinder connectionLimitMetrics(Map<String, DataSource> dataSources) {
+        return registry -> dataSources.forEach((name, dataSource) -> {
+            if (dataSource instanceof ConnectionLimitingDataSource limited) {
+                Gauge.builder("renal.datasource.permits.available", limited, ConnectionLimitingDataSource::availablePermits)
+                        .description("Connections that can still be checked out")
+                        .tag("name", name)
+                        .register(registry);
+                Gauge.builder("renal.datasource.permits.waiting", limited, ConnectionLimitingDataSource::waitingThreads)
+                        .description("Threads waiting for a connection permit")
+                        .tag("name", name)
+                        .register(registry);
+            }
+        });
+    }
+
+    private static boolean enabled(Environment environment) {
+        boolean virtualThreads = environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false);
+        return environment.getProperty("renal.datasource.connection-limit.enabled", Boolean.class, virtualThreads);
+    }
+}
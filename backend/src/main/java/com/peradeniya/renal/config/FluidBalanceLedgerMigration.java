@@ -0,0 +1,48 @@
+package com.peradeniya.renal.config;
+
+import com.peradeniya.renal.service.fluid.FluidBalanceService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Builds the fluid balance ledger of every active admission that predates the ledger, before the web
+ * server accepts requests. Otherwise the first progress notes of such an admission would each try to
+ * build it, and all but one would fail on the unique admission_id (no ledger row to lock yet).
+ * Only touches admissions without a ledger, so it is safe to run on every start and on several nodes.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class FluidBalanceLedgerMigration {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final FluidBalanceService fluidBalanceService;
+
+    @PostConstruct
+    public void migrate() {
+        List<Long> admissionIds = jdbcTemplate.queryForList(
+                "select a.id from admission a where a.active = true "
+                        + "and not exists (select 1 from fluid_balance_ledger l where l.admission_id = a.id)",
+                Long.class);
+        int built = 0;
+        for (Long admissionId : admissionIds) {
+            try {
+                fluidBalanceService.rebuild(admissionId);
+                built++;
+            } catch (DataIntegrityViolationException e) {
+                // built concurrently by another node
+            }
+        }
+        if (built > 0) {
+            log.info("Built fluid balance ledgers for {} active admissions", built);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.peradeniya.renal.config;
+
+import com.peradeniya.renal.model.id.PooledIdGenerator;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Small connection pool, separate from the application pool, that PooledIdGenerator reserves id
+ * blocks on (and BhtSequence its BHT number blocks). Handed to Hibernate as a setting rather than exposed as a DataSource bean, which
+ * would replace the auto-configured one.
+ */
+@Component
+public class IdAllocationDataSource implements HibernatePropertiesCustomizer, DisposableBean {
+
+    private final HikariDataSource dataSource;
+
+    public IdAllocationDataSource(DataSourceProperties properties,
+                                  ObjectProvider<MeterRegistry> meterRegistry,
+                                  @Value("${renal.id.allocation-pool-size:2}") int poolSize) {
+        this.dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("id-allocation");
+        dataSource.setMaximumPoolSize(Math.max(1, poolSize));
+        dataSource.setMinimumIdle(1);
+        // Not a bean, so Boot's pool metrics don't see it; reported as hikaricp_*{pool="id-allocation"}
+        meterRegistry.ifAvailable(registry -> dataSource.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry)));
+    }
+
+    public DataSource dataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public void customize(Map<String, Object> hibernateProperties) {
+        hibernateProperties.put(PooledIdGenerator.DATA_SOURCE_SETTING, dataSource);
+    }
+
+    @Override
+    public void destroy() {
+        dataSource.close();
+    }
+}
@@ -0,0 +1,62 @@
+package com.peradeniya.renal.config;
+
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Allergy;
+import com.peradeniya.renal.model.DischargeSummary;
+import com.peradeniya.renal.model.MedicalProblem;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.model.id.PooledIdGenerator;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Raises each entity's id_allocations row (the last reserved id) to the highest id already in its
+ * table, so databases populated with IDENTITY keys keep working after the switch to pooled ids.
+ * Runs once the schema has been updated and before the web server accepts requests.
+ * It only ever raises next_val, so it is safe to run on every start and on several nodes.
+ */
+@Slf4j
+@Component
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+public class IdAllocationMigration {
+
+    private static final List<Class<?>> POOLED_ENTITIES = List.of(
+            Patient.class, Admission.class, ProgressNote.class,
+            DischargeSummary.class, Allergy.class, MedicalProblem.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        for (Class<?> entity : POOLED_ENTITIES) {
+            String segment = PooledIdGenerator.segmentFor(entity);
+            Long maxId = jdbcTemplate.queryForObject("select coalesce(max(id), 0) from " + segment, Long.class);
+            long lastUsed = maxId != null ? maxId : 0;
+
+            int updated = jdbcTemplate.update(
+                    "update " + PooledIdGenerator.TABLE_NAME + " set " + PooledIdGenerator.VALUE_COLUMN + " = ?"
+                            + " where " + PooledIdGenerator.SEGMENT_COLUMN + " = ? and " + PooledIdGenerator.VALUE_COLUMN + " < ?",
+                    lastUsed, segment, lastUsed);
+            if (updated == 0) {
+                Integer existing = jdbcTemplate.queryForObject(
+                        "select count(*) from " + PooledIdGenerator.TABLE_NAME + " where " + PooledIdGenerator.SEGMENT_COLUMN + " = ?",
+                        Integer.class, segment);
+                if (existing == null || existing == 0) {
+                    jdbcTemplate.update(
+                            "insert into " + PooledIdGenerator.TABLE_NAME
+                                    + " (" + PooledIdGenerator.SEGMENT_COLUMN + ", " + PooledIdGenerator.VALUE_COLUMN + ") values (?, ?)",
+                            segment, lastUsed);
+                }
+            }
+            log.info("Id allocation for {} kept above existing max id {}", segment, lastUsed);
+        }
+    }
+}
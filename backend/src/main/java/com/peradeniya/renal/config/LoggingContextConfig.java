@@ -0,0 +1,67 @@
+package com.peradeniya.renal.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.MDC;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+/**
+ * Puts the patient and admission a request is about (the {phn} / {admId} path variables, or ?phn=)
+ * into the MDC, so every log line written while handling it carries phn= and admissionId= fields.
+ */
+@Configuration
+public class LoggingContextConfig implements WebMvcConfigurer {
+
+    static final String PHN = "phn";
+    static final String ADMISSION_ID = "admissionId";
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LoggingContextInterceptor());
+    }
+
+    private static final class LoggingContextInterceptor implements AsyncHandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables =
+                    (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            String phn = variables != null ? variables.get("phn") : null;
+            if (phn == null) {
+                phn = request.getParameter("phn");
+            }
+            if (phn != null) {
+                MDC.put(PHN, phn);
+            }
+            if (variables != null && variables.get("admId") != null) {
+                MDC.put(ADMISSION_ID, variables.get("admId"));
+            }
+            return true;
+        }
+
+        // Streamed responses (SSE, exports) leave the request thread here; afterCompletion is not called on it
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                   Object handler) {
+            clear();
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                    Object handler, Exception ex) {
+            clear();
+        }
+
+        private static void clear() {
+            MDC.remove(PHN);
+            MDC.remove(ADMISSION_ID);
+        }
+    }
+}
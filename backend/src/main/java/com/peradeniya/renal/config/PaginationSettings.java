@@ -0,0 +1,32 @@
+package com.peradeniya.renal.config;
+
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Shared limits for the keyset-paginated list endpoints (admissions, progress notes)
+@Component
+@Getter
+public class PaginationSettings {
+
+    // When true, requests without limit/after still get the legacy unpaged JSON array
+    @Value("${renal.pagination.unpaged-enabled:true}")
+    private boolean unpagedEnabled;
+
+    @Value("${renal.pagination.default-limit:50}")
+    private int defaultLimit;
+
+    @Value("${renal.pagination.max-limit:200}")
+    private int maxLimit;
+
+    public boolean isUnpagedRequest(Integer limit, String after) {
+        return unpagedEnabled && limit == null && after == null;
+    }
+
+    public int resolveLimit(Integer limit) {
+        if (limit == null) {
+            return defaultLimit;
+        }
+        return Math.max(1, Math.min(limit, maxLimit));
+    }
+}
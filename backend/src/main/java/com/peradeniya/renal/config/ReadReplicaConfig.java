@@ -0,0 +1,137 @@
+package com.peradeniya.renal.config;
+
+import com.peradeniya.renal.service.routing.ReadWriteRoutingDataSource;
+import com.peradeniya.renal.service.routing.ReadYourWrites;
+import com.zaxxer.hikari.HikariDataSource;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Map;
+
+/**
+ * Read replica offload, on when renal.datasource.replica.url is set. Replaces the auto-configured
+ * DataSource with two pools, "primary" (spring.datasource.*) and "replica" (renal.datasource.replica.*),
+ * behind a {@link ReadWriteRoutingDataSource}: read-only transactions (repository finders, readOnly
+ * services) go to the replica unless {@link ReadYourWrites} pins them to the primary.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty("renal.datasource.replica.url")
+@RequiredArgsConstructor
+public class ReadReplicaConfig implements WebMvcConfigurer {
+
+    private final ReadYourWrites readYourWrites;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("renal.datasource.replica.hikari")
+    HikariDataSource replicaDataSource(
+            @Value("${renal.datasource.replica.url}") String url,
+            @Value("${renal.datasource.replica.username:${spring.datasource.username:}}") String username,
+            @Value("${renal.datasource.replica.password:${spring.datasource.password:}}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create().type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                          @Qualifier("replicaDataSource") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReadWriteRoutingDataSource(primary, replica, readYourWrites));
+    }
+
+    /**
+     * Local stand-in for replication between two embedded H2 databases: copies the primary's schema
+     * (not its data) to the replica at startup, so reads routed there run but only see what the replica
+     * was given. H2 only.
+     */
+    @Bean
+    @ConditionalOnProperty("renal.datasource.replica.copy-schema")
+    ApplicationRunner replicaSchemaCopy(@Qualifier("primaryDataSource") DataSource primary,
+                                        @Qualifier("replicaDataSource") DataSource replica) {
+        return args -> {
+            int statements = 0;
+            try (Connection from = primary.getConnection();
+                 Statement read = from.createStatement();
+                 ResultSet script = read.executeQuery("SCRIPT NODATA");
+                 Connection to = replica.getConnection();
+                 Statement write = to.createStatement()) {
+                write.execute("DROP ALL OBJECTS");
+                while (script.next()) {
+                    write.execute(script.getString(1));
+                    statements++;
+                }
+            }
+            log.info("Copied primary schema to replica ({} statements)", statements);
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new PhnBindingInterceptor(readYourWrites));
+    }
+
+    // Binds the request's {phn} path variable (or ?phn=), and whether it writes, for the duration of the request
+    private record PhnBindingInterceptor(ReadYourWrites readYourWrites) implements AsyncHandlerInterceptor {
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            @SuppressWarnings("unchecked")
+            Map<String, String> variables =
+                    (Map<String, String>) request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE);
+            String phn = variables != null ? variables.get("phn") : null;
+            if (phn == null) {
+                phn = request.getParameter("phn");
+            }
+            String method = request.getMethod();
+            boolean writeRequest = !method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS");
+            readYourWrites.bind(phn, writeRequest);
+            return true;
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                                   Object handler) {
+            readYourWrites.clear();
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                    Object handler, Exception ex) {
+            readYourWrites.clear();
+        }
+    }
+}
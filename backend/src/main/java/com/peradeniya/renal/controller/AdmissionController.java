@@ -1,12 +1,16 @@
 package com.peradeniya.renal.controller;
 
+import com.peradeniya.renal.config.PaginationSettings;
+import com.peradeniya.renal.exception.PatientNotFoundException;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.Patient;
 import com.peradeniya.renal.service.AdmissionService;
 import com.peradeniya.renal.service.PatientService;
+import com.peradeniya.renal.service.cache.ResponseVersions;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.util.List;
 
@@ -17,14 +21,29 @@ public class AdmissionController {
 
     private final PatientService patientService;
     private final AdmissionService admissionService;
+    private final PaginationSettings paginationSettings;
+    private final ResponseVersions responseVersions;
 
     @GetMapping
-    public ResponseEntity<List<Admission>> getAdmissions(@PathVariable("phn") String phn) {
+    public ResponseEntity<?> getAdmissions(
+            @PathVariable("phn") String phn,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            ServletWebRequest webRequest) {
         String cleanPhn = phn.replaceAll("[^0-9]", "");
-        
+        if (responseVersions.patientNotModified(webRequest, cleanPhn)) {
+            return null;
+        }
+
         Patient patient = patientService.findByPhn(cleanPhn)
-                .orElseThrow(() -> new RuntimeException("Patient not found with PHN: " + cleanPhn));
+                .orElseThrow(() -> new PatientNotFoundException(cleanPhn));
+        responseVersions.found(webRequest);
+
+        if (!paginationSettings.isUnpagedRequest(limit, after)) {
+            return ResponseEntity.ok(admissionService.getAdmissionsPage(patient, paginationSettings.resolveLimit(limit), after));
+        }
 
+        // Legacy unpaged shape (plain array)
         // FIXED: Use correct method name
         List<Admission> admissions = admissionService.getAdmissionsForPatient(patient);
         return ResponseEntity.ok(admissions);
@@ -1,17 +1,25 @@
 package com.peradeniya.renal.controller;
 
 import com.peradeniya.renal.dto.DischargeSummaryRequest;
+import com.peradeniya.renal.dto.PdfRenderStatus;
+import com.peradeniya.renal.exception.PatientNotFoundException;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.DischargeSummary;
 import com.peradeniya.renal.model.Patient;
 import com.peradeniya.renal.service.AdmissionService;
 import com.peradeniya.renal.service.DischargeSummaryService;
 import com.peradeniya.renal.service.PatientService;
-import com.peradeniya.renal.service.pdf.PdfService;
+import com.peradeniya.renal.service.pdf.PdfArtifactStore;
+import com.peradeniya.renal.service.pdf.PdfRenderQueue;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.*;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+@Slf4j
 @RestController
 @RequestMapping("/patients/{phn}/admissions/{admId}/discharge-summary")
 @RequiredArgsConstructor
@@ -20,7 +28,8 @@ public class DischargeSummaryController {
     private final PatientService patientService;
     private final AdmissionService admissionService;
     private final DischargeSummaryService dsService;
-    private final PdfService pdfService;
+    private final PdfRenderQueue pdfRenderQueue;
+    private final PdfArtifactStore pdfArtifactStore;
 
     @PostMapping
     public DischargeSummary create(
@@ -28,21 +37,46 @@ public class DischargeSummaryController {
             @PathVariable("admId") Long admId,
             @RequestBody DischargeSummaryRequest req
     ) {
-        System.out.println("Creating discharge summary for PHN: " + phn + ", Admission: " + admId);
-        System.out.println("Discharge summary payload: " + req);
+        log.debug("Creating discharge summary: {}", req);
         
         Patient p = patientService.findByPhn(phn)
-                .orElseThrow(() -> new RuntimeException("Patient not found with PHN: " + phn));
+                .orElseThrow(() -> new PatientNotFoundException(phn));
         return dsService.create(admId, p, req);
     }
 
+    // Served from the stored artifact; the ETag is the content hash, so re-downloads can be 304s
     @GetMapping("/pdf")
-    public ResponseEntity<byte[]> getPdf(
+    public ResponseEntity<Resource> getPdf(
+            @PathVariable("phn") String phn,
+            @PathVariable("admId") Long admId,
+            WebRequest request
+    ) {
+        log.debug("Serving discharge summary PDF");
+
+        DischargeSummary ds = getSummary(phn, admId);
+        String digest = pdfRenderQueue.awaitDigest(ds);
+        String etag = "\"" + digest + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .header("Content-Disposition", "attachment; filename=discharge-summary.pdf")
+                .body(new FileSystemResource(pdfArtifactStore.path(digest)));
+    }
+
+    @GetMapping("/pdf/status")
+    public PdfRenderStatus getPdfStatus(
             @PathVariable("phn") String phn,
             @PathVariable("admId") Long admId
     ) {
-        System.out.println("Generating PDF for discharge summary - PHN: " + phn + ", Admission: " + admId);
-        
+        return pdfRenderQueue.status(getSummary(phn, admId));
+    }
+
+    private DischargeSummary getSummary(String phn, Long admId) {
         Admission adm = admissionService.getById(admId);
 
         if (!adm.getPatient().getPhn().equals(phn))
@@ -51,12 +85,6 @@ public class DischargeSummaryController {
         DischargeSummary ds = adm.getDischargeSummary();
         if (ds == null)
             throw new RuntimeException("Discharge summary not found");
-
-        byte[] pdf = pdfService.generateDischargeSummaryPdf(ds);
-
-        return ResponseEntity.ok()
-                .contentType(MediaType.APPLICATION_PDF)
-                .header("Content-Disposition", "attachment; filename=discharge-summary.pdf")
-                .body(pdf);
+        return ds;
     }
-}
\ No newline at end of file
+}
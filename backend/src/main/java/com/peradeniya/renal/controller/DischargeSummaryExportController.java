@@ -0,0 +1,42 @@
+package com.peradeniya.renal.controller;
+
+import com.peradeniya.renal.service.pdf.DischargeSummaryExporter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/discharge-summaries")
+@RequiredArgsConstructor
+public class DischargeSummaryExportController {
+
+    private final DischargeSummaryExporter exporter;
+
+    // ZIP of discharge summary PDFs, streamed while it is being built
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "ward", required = false) String ward,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to
+    ) {
+        if (from != null && to != null && from.isAfter(to))
+            throw new RuntimeException("from must not be after to");
+
+        String fileName = "discharge-summaries"
+                + (ward != null && !ward.isBlank() ? "-" + ward.trim().replaceAll("[^A-Za-z0-9_-]", "_") : "")
+                + (from != null ? "-" + from : "")
+                + (to != null ? "-" + to : "")
+                + ".zip";
+
+        StreamingResponseBody body = out -> exporter.export(ward, from, to, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/zip"))
+                .header("Content-Disposition", "attachment; filename=" + fileName)
+                .body(body);
+    }
+}
@@ -0,0 +1,54 @@
+package com.peradeniya.renal.controller;
+
+import com.peradeniya.renal.dto.FluidBalanceRebuildResult;
+import com.peradeniya.renal.dto.FluidBalanceResponse;
+import com.peradeniya.renal.exception.PatientNotFoundException;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.service.AdmissionService;
+import com.peradeniya.renal.service.PatientService;
+import com.peradeniya.renal.service.fluid.FluidBalanceConsistencyJob;
+import com.peradeniya.renal.service.fluid.FluidBalanceService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class FluidBalanceController {
+
+    private final PatientService patientService;
+    private final AdmissionService admissionService;
+    private final FluidBalanceService fluidBalanceService;
+    private final FluidBalanceConsistencyJob fluidBalanceConsistencyJob;
+
+    @GetMapping("/patients/{phn}/admissions/{admId}/fluid-balance")
+    public FluidBalanceResponse getBalance(@PathVariable("phn") String phn, @PathVariable("admId") Long admId) {
+        checkOwnership(phn, admId);
+        return fluidBalanceService.getBalance(admId);
+    }
+
+    @PostMapping("/patients/{phn}/admissions/{admId}/fluid-balance/rebuild")
+    public FluidBalanceRebuildResult rebuild(@PathVariable("phn") String phn, @PathVariable("admId") Long admId) {
+        checkOwnership(phn, admId);
+        return fluidBalanceService.rebuild(admId);
+    }
+
+    // Rebuilds every active admission; returns only the ones whose ledger changed
+    @PostMapping("/fluid-balance/rebuild")
+    public List<FluidBalanceRebuildResult> rebuildActive() {
+        return fluidBalanceConsistencyJob.checkActiveAdmissions();
+    }
+
+    private void checkOwnership(String phn, Long admId) {
+        String cleanPhn = phn.replaceAll("[^0-9]", "");
+        Patient p = patientService.findByPhn(cleanPhn)
+                .orElseThrow(() -> new PatientNotFoundException(cleanPhn));
+
+        Admission admission = admissionService.getById(admId);
+
+        if (!admission.getPatient().getId().equals(p.getId()))
+            throw new RuntimeException("Admission does not belong to patient");
+    }
+}
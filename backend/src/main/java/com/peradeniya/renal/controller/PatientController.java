@@ -2,32 +2,43 @@ package com.peradeniya.renal.controller;
 
 import com.peradeniya.renal.dto.PatientCreateRequest;
 import com.peradeniya.renal.dto.PatientResponse;
+import com.peradeniya.renal.dto.PatientSearchResult;
+import com.peradeniya.renal.exception.PatientNotFoundException;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.Patient;
 import com.peradeniya.renal.service.PatientService;
+import com.peradeniya.renal.service.cache.ResponseVersions;
+import com.peradeniya.renal.service.pdf.PatientHistoryReport;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 
+@Slf4j
 @RestController
 @RequestMapping("/patients")
 @RequiredArgsConstructor
 public class PatientController {
 
     private final PatientService patientService;
+    private final PatientHistoryReport patientHistoryReport;
+    private final ResponseVersions responseVersions;
 
     @PostMapping
     public ResponseEntity<Patient> createPatient(@RequestBody PatientCreateRequest request) {
-        System.out.println("Received patient creation request: " + request);
+        log.debug("Received patient creation request: {}", request);
         
         // Log admission time for debugging
         if (request.getAdmissionTime() != null) {
-            System.out.println("Admission time from request: " + request.getAdmissionTime());
-            System.out.println("Parsed admission time: " + request.getAdmissionTimeAsLocalDateTime());
+            log.debug("Admission time from request: {}, parsed: {}", request.getAdmissionTime(), request.getAdmissionTimeAsLocalDateTime());
         }
         
         Patient patient = patientService.createPatient(request);
@@ -35,22 +46,19 @@ public class PatientController {
     }
 
     @GetMapping
-    public ResponseEntity<PatientResponse> getPatientByPhn(@RequestParam("phn") String phn) {
+    public ResponseEntity<PatientResponse> getPatientByPhn(@RequestParam("phn") String phn, ServletWebRequest webRequest) {
         String cleanPhn = phn.replaceAll("[^0-9]", "");
-        System.out.println("Searching for patient with PHN: " + cleanPhn);
-        
-        // Use the new method that throws exception if not found
-        Patient patient = patientService.getPatientByPhn(cleanPhn);
-        
-        // Get active admission (returns Optional)
-        Optional<Admission> admissionOpt = patientService.getActiveAdmission(patient);
-        Admission admission = admissionOpt.orElse(null);
+        if (responseVersions.patientNotModified(webRequest, cleanPhn)) {
+            return null;
+        }
+        log.debug("Searching for patient");
         
-        PatientResponse response = PatientResponse.from(patient, admission);
+        // Served from the PatientResponse cache; evicted on every write path
+        PatientResponse response = patientService.getPatientResponse(cleanPhn);
+        responseVersions.found(webRequest);
         
         // Debug logging
-        System.out.println("✅ PatientResponse created - hasActiveAdmission: " + response.getHasActiveAdmission());
-        System.out.println("✅ PatientResponse created - admissionId: " + response.getAdmissionId());
+        log.debug("PatientResponse hasActiveAdmission={} admissionId={}", response.getHasActiveAdmission(), response.getAdmissionId());
         
         return ResponseEntity.ok(response);
     }
@@ -60,16 +68,42 @@ public class PatientController {
             @PathVariable("phn") String phn, 
             @RequestBody StatusUpdateRequest request) {
         String cleanPhn = phn.replaceAll("[^0-9]", "");
-        System.out.println("Updating status for PHN: " + cleanPhn + " to: " + request.getStatus());
+        log.debug("Updating patient status to {}", request.getStatus());
         
         Patient patient = patientService.updatePatientStatus(cleanPhn, request.getStatus());
         return ResponseEntity.ok(patient);
     }
 
+    // Every admission with its progress notes and discharge summary, streamed as the PDF is written
+    @GetMapping("/{phn}/history/pdf")
+    public ResponseEntity<StreamingResponseBody> getHistoryPdf(@PathVariable("phn") String phn) {
+        String cleanPhn = phn.replaceAll("[^0-9]", "");
+        Patient patient = patientService.findByPhn(cleanPhn)
+                .orElseThrow(() -> new PatientNotFoundException(cleanPhn));
+
+        StreamingResponseBody body = out -> patientHistoryReport.write(patient, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_PDF)
+                .header("Content-Disposition", "attachment; filename=clinical-history-" + cleanPhn + ".pdf")
+                .body(body);
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<List<PatientSearchResult>> searchPatients(
+            @RequestParam("q") String q,
+            @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return ResponseEntity.ok(patientService.search(q, limit));
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> cacheStats() {
+        return ResponseEntity.ok(patientService.getCacheStats());
+    }
+
     @GetMapping("/debug/{phn}")
     public ResponseEntity<Map<String, Object>> debugPatient(@PathVariable("phn") String phn) {
         String cleanPhn = phn.replaceAll("[^0-9]", "");
-        System.out.println("🔍 DEBUG: Getting patient with PHN: " + cleanPhn);
+        log.debug("Debug lookup of patient");
         
         try {
             Patient patient = patientService.getPatientByPhn(cleanPhn);
@@ -85,8 +119,7 @@ public class PatientController {
             debug.put("hasActiveAdmission", admission != null && admission.isActive());
             debug.put("admissionId", admission != null ? admission.getId() : null);
             
-            System.out.println("✅ DEBUG: Response hasActiveAdmission: " + response.getHasActiveAdmission());
-            System.out.println("✅ DEBUG: Response admissionId: " + response.getAdmissionId());
+            log.debug("Debug lookup hasActiveAdmission={} admissionId={}", response.getHasActiveAdmission(), response.getAdmissionId());
             
             return ResponseEntity.ok(debug);
         } catch (Exception e) {
@@ -112,7 +145,7 @@ public class PatientController {
     @GetMapping("/test-search")
 public ResponseEntity<Map<String, Object>> testSearch(@RequestParam("phn") String phn) {
     String cleanPhn = phn.replaceAll("[^0-9]", "");
-    System.out.println("🧪 TEST SEARCH: PHN = " + cleanPhn);
+    log.debug("Test search");
     
     Map<String, Object> response = new HashMap<>();
     
@@ -128,7 +161,7 @@ public ResponseEntity<Map<String, Object>> testSearch(@RequestParam("phn") Strin
             response.put("patientId", patient.getId());
             response.put("patientName", patient.getName());
             response.put("hasActiveAdmission", admissionOpt.isPresent());
-            response.put("admissionCount", patient.getAdmissions().size());
+            response.put("admissionCount", patientService.getAdmissionCount(patient));
             
             if (admissionOpt.isPresent()) {
                 response.put("admissionId", admissionOpt.get().getId());
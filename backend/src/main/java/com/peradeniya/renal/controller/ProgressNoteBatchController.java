@@ -0,0 +1,35 @@
+package com.peradeniya.renal.controller;
+
+import com.peradeniya.renal.dto.ProgressNoteBatchItem;
+import com.peradeniya.renal.dto.ProgressNoteBatchResult;
+import com.peradeniya.renal.service.ProgressNoteService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@Slf4j
+@RestController
+@RequestMapping("/progress-notes")
+@RequiredArgsConstructor
+public class ProgressNoteBatchController {
+
+    private final ProgressNoteService progressNoteService;
+
+    @Value("${renal.progress-notes.batch-max-size:500}")
+    private int batchMaxSize;
+
+    // Notes for many admissions at once (end-of-round vitals). Each result reports whether
+    // its note was created, so ownership failures do not hide the notes that were saved.
+    @PostMapping("/batch")
+    public List<ProgressNoteBatchResult> addNotes(@RequestBody List<ProgressNoteBatchItem> items) {
+        log.debug("Adding batch of {} progress notes", items.size());
+
+        if (items.size() > batchMaxSize)
+            throw new RuntimeException("Batch too large: " + items.size() + " notes (max " + batchMaxSize + ")");
+
+        return progressNoteService.addNotes(items);
+    }
+}
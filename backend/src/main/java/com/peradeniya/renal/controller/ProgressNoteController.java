@@ -1,17 +1,21 @@
 package com.peradeniya.renal.controller;
 
+import com.peradeniya.renal.config.PaginationSettings;
 import com.peradeniya.renal.dto.ProgressNoteRequest;
+import com.peradeniya.renal.exception.PatientNotFoundException;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.Patient;
 import com.peradeniya.renal.model.ProgressNote;
 import com.peradeniya.renal.service.AdmissionService;
 import com.peradeniya.renal.service.PatientService;
 import com.peradeniya.renal.service.ProgressNoteService;
+import com.peradeniya.renal.service.cache.ResponseVersions;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import java.util.List;
-
+@Slf4j
 @RestController
 @RequestMapping("/patients/{phn}/admissions/{admId}/progress-notes")
 @RequiredArgsConstructor
@@ -20,6 +24,8 @@ public class ProgressNoteController {
     private final PatientService patientService;
     private final AdmissionService admissionService;
     private final ProgressNoteService progressNoteService;
+    private final PaginationSettings paginationSettings;
+    private final ResponseVersions responseVersions;
 
     @PostMapping
     public ProgressNote addNote(
@@ -27,12 +33,11 @@ public class ProgressNoteController {
             @PathVariable("admId") Long admId,
             @RequestBody ProgressNoteRequest req
     ) {
-        System.out.println("Adding progress note for PHN: " + phn + ", Admission: " + admId);
-        System.out.println("Progress note payload: " + req);
+        log.debug("Adding progress note: {}", req);
         
         String cleanPhn = phn.replaceAll("[^0-9]", "");
         Patient p = patientService.findByPhn(cleanPhn)
-                .orElseThrow(() -> new RuntimeException("Patient not found with PHN: " + cleanPhn));
+                .orElseThrow(() -> new PatientNotFoundException(cleanPhn));
 
         Admission admission = admissionService.getById(admId);
 
@@ -43,21 +48,35 @@ public class ProgressNoteController {
     }
 
     @GetMapping
-    public List<ProgressNote> getNotes(
+    public Object getNotes(
             @PathVariable("phn") String phn,
-            @PathVariable("admId") Long admId
+            @PathVariable("admId") Long admId,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "after", required = false) String after,
+            ServletWebRequest webRequest
     ) {
-        System.out.println("Getting progress notes for PHN: " + phn + ", Admission: " + admId);
+        log.debug("Getting progress notes");
         
         String cleanPhn = phn.replaceAll("[^0-9]", "");
         Patient p = patientService.findByPhn(cleanPhn)
-                .orElseThrow(() -> new RuntimeException("Patient not found with PHN: " + cleanPhn));
+                .orElseThrow(() -> new PatientNotFoundException(cleanPhn));
 
         Admission admission = admissionService.getById(admId);
 
         if (!admission.getPatient().getId().equals(p.getId()))
             throw new RuntimeException("Admission does not belong to patient");
 
+        // Only after the ownership check, so a foreign admission id never gets a 304
+        if (responseVersions.admissionNotModified(webRequest, admId)) {
+            return null;
+        }
+        responseVersions.found(webRequest);
+
+        if (!paginationSettings.isUnpagedRequest(limit, after)) {
+            return progressNoteService.getNotesPage(admId, paginationSettings.resolveLimit(limit), after);
+        }
+
+        // Legacy unpaged shape (plain array)
         return progressNoteService.getNotesForAdmission(admId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+package com.peradeniya.renal.controller;
+
+import com.peradeniya.renal.dto.VitalsResponse;
+import com.peradeniya.renal.exception.AdmissionNotFoundException;
+import com.peradeniya.renal.exception.PatientNotFoundException;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.service.AdmissionService;
+import com.peradeniya.renal.service.PatientService;
+import com.peradeniya.renal.service.ProgressNoteService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+
+@RestController
+@RequestMapping("/patients/{phn}/admissions/{admId}/vitals")
+@RequiredArgsConstructor
+public class VitalsController {
+
+    private final PatientService patientService;
+    private final AdmissionService admissionService;
+    private final ProgressNoteService progressNoteService;
+
+    @GetMapping
+    public VitalsResponse getVitals(
+            @PathVariable("phn") String phn,
+            @PathVariable("admId") Long admId,
+            @RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(value = "step", defaultValue = "1h") String step,
+            @RequestParam(value = "agg", defaultValue = "avg") String agg
+    ) {
+        String cleanPhn = phn.replaceAll("[^0-9]", "");
+        Patient p = patientService.findByPhn(cleanPhn)
+                .orElseThrow(() -> new PatientNotFoundException(cleanPhn));
+
+        Admission admission = admissionService.getById(admId);
+
+        // Another patient's admission is reported the same way as a missing one
+        if (!admission.getPatient().getId().equals(p.getId()))
+            throw new AdmissionNotFoundException(admId);
+
+        return progressNoteService.getVitals(admId, from, to, step, agg);
+    }
+}
@@ -0,0 +1,36 @@
+package com.peradeniya.renal.controller;
+
+import com.peradeniya.renal.dto.WardCensusResponse;
+import com.peradeniya.renal.service.census.WardCensus;
+import com.peradeniya.renal.service.events.WardEventHub;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/wards")
+@RequiredArgsConstructor
+public class WardController {
+
+    private final WardCensus wardCensus;
+    private final WardEventHub wardEventHub;
+
+    @GetMapping("/{ward}/census")
+    public WardCensusResponse census(@PathVariable("ward") String ward) {
+        return wardCensus.census(ward);
+    }
+
+    // Server-Sent Events: admitted, discharged, note_added, status_changed, and resync after dropped events
+    @GetMapping(value = "/{ward}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@PathVariable("ward") String ward) {
+        return wardEventHub.subscribe(ward);
+    }
+
+    @GetMapping("/event-stats")
+    public Map<String, Object> eventStats() {
+        return wardEventHub.stats();
+    }
+}
@@ -0,0 +1,49 @@
+package com.peradeniya.renal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.Function;
+
+// One page of a keyset-paginated list. nextCursor is null on the last page.
+@Data
+@AllArgsConstructor
+public class CursorPage<T> {
+
+    private static final String NULL_KEY = "~";
+
+    private List<T> items;
+    private String nextCursor;
+
+    // rows holds up to limit + 1 entries; the extra row only tells us another page exists
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, String> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(List.copyOf(items), cursorOf.apply(items.get(limit - 1)));
+    }
+
+    public static String encodeCursor(Object sortKey, Long id) {
+        String raw = (sortKey != null ? sortKey.toString() : NULL_KEY) + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static Cursor decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int sep = raw.lastIndexOf('|');
+            String key = raw.substring(0, sep);
+            return new Cursor(NULL_KEY.equals(key) ? null : key, Long.parseLong(raw.substring(sep + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor: " + cursor);
+        }
+    }
+
+    // sortKey is null when the row's sort column was null (those rows sort last)
+    public record Cursor(String sortKey, long id) {
+    }
+}
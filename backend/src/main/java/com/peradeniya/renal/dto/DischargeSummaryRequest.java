@@ -1,8 +1,10 @@
 package com.peradeniya.renal.dto;
 
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDate;
 
+@Slf4j
 @Data
 public class DischargeSummaryRequest {
     private String dischargeDate;
@@ -12,6 +14,8 @@ public class DischargeSummaryRequest {
     private String management;
     private String dischargePlan;
     private String drugsFreeHand;
+    // Admission version the summary was written against; when given, a changed admission is a 409
+    private Long admissionVersion;
     
     // Helper method to parse discharge date
     public LocalDate getDischargeDateAsLocalDate() {
@@ -21,7 +25,7 @@ public class DischargeSummaryRequest {
         try {
             return LocalDate.parse(dischargeDate);
         } catch (Exception e) {
-            System.err.println("Failed to parse discharge date: " + dischargeDate);
+            log.warn("Failed to parse discharge date: {}", dischargeDate);
             return null;
         }
     }
@@ -0,0 +1,15 @@
+package com.peradeniya.renal.dto;
+
+import com.peradeniya.renal.model.FluidTotals;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class FluidBalanceRebuildResult {
+    private Long admissionId;
+    // null when the admission had no ledger yet
+    private FluidTotals before;
+    private FluidTotals after;
+    private boolean consistent;
+}
@@ -0,0 +1,21 @@
+package com.peradeniya.renal.dto;
+
+import com.peradeniya.renal.model.FluidTotals;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+public class FluidBalanceResponse {
+    private Long admissionId;
+    private FluidTotals admissionToDate;
+    // Rolling window of the last 24 clock hours, including the current one
+    private LocalDateTime last24hFrom;
+    private FluidTotals last24h;
+    private LocalDateTime shiftStart;
+    private FluidTotals shift;
+    private LocalDateTime lastNoteAt;
+    private LocalDateTime rebuiltAt;
+}
@@ -1,11 +1,13 @@
 package com.peradeniya.renal.dto;
 
 import lombok.Data;
+import lombok.extern.slf4j.Slf4j;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 
+@Slf4j
 @Data
 public class PatientCreateRequest {
     private String phn;
@@ -76,7 +78,7 @@ public class PatientCreateRequest {
             return LocalDateTime.parse(admissionDate.toString() + "T" + timeString);
             
         } catch (DateTimeParseException e) {
-            System.err.println("Failed to parse admission time: " + admissionTime + ", error: " + e.getMessage());
+            log.warn("Failed to parse admission time: {} ({})", admissionTime, e.getMessage());
             return null;
         }
     }
@@ -5,11 +5,14 @@ import com.peradeniya.renal.model.Patient;
 import lombok.Data;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
 @Data
 public class PatientResponse {
 
+    private static final DateTimeFormatter ADMISSION_TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm");
+
     private Long id;
     private String phn;
     private String name;
@@ -26,6 +29,7 @@ public class PatientResponse {
     private String religion;
     private String occupation;
     private String maritalStatus;
+    private Integer admissionCount;
 
     // Admission merged fields
     private String bhtNumber;
@@ -57,7 +61,7 @@ public class PatientResponse {
     public PatientResponse(
             Long id, String phn, String name, LocalDate dob, String sex, String status,
             String address, String phone, String nic, String mohArea, String ethnicGroup, 
-            String religion, String occupation, String maritalStatus,
+            String religion, String occupation, String maritalStatus, Integer admissionCount,
             String bhtNumber, String ward, String wardNumber, String bedId, 
             LocalDate admissionDate, String admissionTime, String consultantName, 
             String referredBy, String primaryDiagnosis, String admissionType, 
@@ -79,6 +83,7 @@ public class PatientResponse {
         this.religion = religion;
         this.occupation = occupation;
         this.maritalStatus = maritalStatus;
+        this.admissionCount = admissionCount;
         this.bhtNumber = bhtNumber;
         this.ward = ward;
         this.wardNumber = wardNumber;
@@ -101,6 +106,31 @@ public class PatientResponse {
         this.hasActiveAdmission = hasActiveAdmission;
     }
 
+    // Projection constructor used by PatientRepository.findResponsesByPhn (JPQL "select new ...").
+    // Admission columns are null when the patient has no active admission.
+    public PatientResponse(
+            Long id, String phn, String name, LocalDate dob, String sex, String status,
+            String address, String phone, String nic, String mohArea, String ethnicGroup,
+            String religion, String occupation, String maritalStatus, Integer admissionCount,
+            String bhtNumber, String ward, String wardNumber, String bedId,
+            LocalDate admissionDate, LocalDateTime admissionTime, String consultantName,
+            String referredBy, String primaryDiagnosis, String admissionType,
+            String admittingOfficer, String presentingComplaints,
+            Double examTempC, Double examHeightCm, Double examWeightKg, Double examBMI,
+            String examBloodPressure, Integer examHeartRate,
+            Long admissionId, Boolean admissionActive) {
+        this(id, phn, name, dob, sex, status,
+                address, phone, nic, mohArea, ethnicGroup,
+                religion, occupation, maritalStatus, admissionCount,
+                bhtNumber, ward, wardNumber, bedId,
+                admissionDate, admissionTime != null ? admissionTime.format(ADMISSION_TIME_FORMAT) : null,
+                consultantName, referredBy, primaryDiagnosis, admissionType,
+                admittingOfficer, presentingComplaints,
+                examTempC, examHeightCm, examWeightKg, examBMI,
+                examBloodPressure, examHeartRate,
+                admissionId, admissionId != null && Boolean.TRUE.equals(admissionActive));
+    }
+
     public static PatientResponse from(Patient p, Admission a) {
         return new PatientResponse(
                 p.getId(),
@@ -119,6 +149,7 @@ public class PatientResponse {
                 p.getReligion(),
                 p.getOccupation(),
                 p.getMaritalStatus(),
+                p.getAdmissionCount(),
 
                 // Admission fields
                 a != null ? a.getBhtNumber() : null,
@@ -127,7 +158,7 @@ public class PatientResponse {
                 a != null ? a.getBedId() : null,
                 a != null ? a.getAdmittedOn() : null,
                 a != null && a.getAdmissionTime() != null ? 
-                    a.getAdmissionTime().format(DateTimeFormatter.ofPattern("HH:mm")) : null,
+                    a.getAdmissionTime().format(ADMISSION_TIME_FORMAT) : null,
                 a != null ? a.getConsultantName() : null,
                 a != null ? a.getReferredBy() : null,
                 a != null ? a.getPrimaryDiagnosis() : null,
@@ -0,0 +1,16 @@
+package com.peradeniya.renal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PatientSearchResult {
+    private Long id;
+    private String phn;
+    private String name;
+    private String nic;
+    private String phone;
+}
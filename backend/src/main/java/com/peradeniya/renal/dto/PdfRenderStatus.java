@@ -0,0 +1,18 @@
+package com.peradeniya.renal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PdfRenderStatus {
+
+    public enum State { NOT_RENDERED, QUEUED, RENDERING, READY, FAILED }
+
+    private Long dischargeSummaryId;
+    private State state;
+    private String digest;
+    private String error;
+}
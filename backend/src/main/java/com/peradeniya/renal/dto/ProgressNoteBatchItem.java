@@ -0,0 +1,12 @@
+package com.peradeniya.renal.dto;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+// One note in POST /progress-notes/batch; identifies its own patient and admission
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ProgressNoteBatchItem extends ProgressNoteRequest {
+    private String phn;
+    private Long admissionId;
+}
@@ -0,0 +1,22 @@
+package com.peradeniya.renal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ProgressNoteBatchResult {
+    private int index;
+    private Long admissionId;
+    private Long noteId;
+    private boolean created;
+    private String error;
+
+    public static ProgressNoteBatchResult created(int index, Long admissionId, Long noteId) {
+        return new ProgressNoteBatchResult(index, admissionId, noteId, true, null);
+    }
+
+    public static ProgressNoteBatchResult rejected(int index, Long admissionId, String error) {
+        return new ProgressNoteBatchResult(index, admissionId, null, false, error);
+    }
+}
@@ -0,0 +1,21 @@
+package com.peradeniya.renal.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// One downsampled point; a sign is null when nothing was recorded for it in the bucket
+@Data
+public class VitalsBucket {
+    private LocalDateTime start;
+    private int readings;
+    private Double tempC;
+    private Double weightKg;
+    private Double bpHigh;
+    private Double bpLow;
+    private Double heartRate;
+    private Double inputMl;
+    private Double urineOutputMl;
+    private Double pdBalance;
+    private Double totalBalance;
+}
@@ -0,0 +1,18 @@
+package com.peradeniya.renal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class VitalsResponse {
+    private Long admissionId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String step;
+    private String agg;
+    private List<VitalsBucket> buckets;
+}
@@ -0,0 +1,30 @@
+package com.peradeniya.renal.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class WardCensusResponse {
+    private String ward;
+    private int capacity;
+    private int occupied;
+    private int free;
+    // Lowest free bed number, null when the ward is full
+    private Integer firstFreeBed;
+    private List<Integer> freeBeds;
+    private List<BedOccupancy> beds;
+    // Active admissions in the ward without a bed id
+    private List<Long> unassignedAdmissions;
+
+    @Data
+    @AllArgsConstructor
+    public static class BedOccupancy {
+        private String bedId;
+        // null when the bed id has no number, such bed ids do not count against capacity
+        private Integer bedNumber;
+        private Long admissionId;
+    }
+}
@@ -0,0 +1,51 @@
+package com.peradeniya.renal.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.service.census.WardCensus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+// Compact change notification pushed to ward dashboards; clients refetch what they need
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WardEvent {
+
+    public enum Type { ADMITTED, DISCHARGED, NOTE_ADDED, STATUS_CHANGED }
+
+    private Type type;
+    private String ward;
+    private String phn;
+    private Long admissionId;
+    private String bedId;
+    private Long noteId;
+    private String status;
+    private LocalDateTime at;
+
+    public static WardEvent admitted(Admission admission) {
+        return of(Type.ADMITTED, admission, null, null);
+    }
+
+    public static WardEvent discharged(Admission admission) {
+        return of(Type.DISCHARGED, admission, null, null);
+    }
+
+    public static WardEvent noteAdded(ProgressNote note) {
+        return of(Type.NOTE_ADDED, note.getAdmission(), note.getId(), null);
+    }
+
+    public static WardEvent statusChanged(Admission admission, String status) {
+        return of(Type.STATUS_CHANGED, admission, null, status);
+    }
+
+    private static WardEvent of(Type type, Admission admission, Long noteId, String status) {
+        return new WardEvent(type,
+                WardCensus.wardKeyOf(admission.getWard(), admission.getWardNumber()),
+                admission.getPatient() != null ? admission.getPatient().getPhn() : null,
+                admission.getId(), admission.getBedId(), noteId, status, LocalDateTime.now());
+    }
+}
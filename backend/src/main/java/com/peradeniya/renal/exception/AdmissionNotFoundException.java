@@ -0,0 +1,9 @@
+package com.peradeniya.renal.exception;
+
+// Like PatientNotFoundException: an expected outcome, so no stack trace, and a 404 from GlobalExceptionHandler
+public class AdmissionNotFoundException extends RuntimeException {
+
+    public AdmissionNotFoundException(Long admissionId) {
+        super("Admission not found with id: " + admissionId, null, false, false);
+    }
+}
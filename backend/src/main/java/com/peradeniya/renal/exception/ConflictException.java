@@ -0,0 +1,10 @@
+package com.peradeniya.renal.exception;
+
+// The request lost a race or was based on stale data (e.g. discharging an admission someone else
+// already discharged); mapped to 409 by GlobalExceptionHandler so the client can reload and retry.
+public class ConflictException extends RuntimeException {
+
+    public ConflictException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -1,13 +1,44 @@
 package com.peradeniya.renal.exception;
 
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    @ExceptionHandler(PatientNotFoundException.class)
+    public ResponseEntity<ApiException> handlePatientNotFound(PatientNotFoundException ex) {
+        return new ResponseEntity<>(new ApiException(ex.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(AdmissionNotFoundException.class)
+    public ResponseEntity<ApiException> handleAdmissionNotFound(AdmissionNotFoundException ex) {
+        return new ResponseEntity<>(new ApiException(ex.getMessage()), HttpStatus.NOT_FOUND);
+    }
+
+    @ExceptionHandler(ConflictException.class)
+    public ResponseEntity<ApiException> handleConflict(ConflictException ex) {
+        return new ResponseEntity<>(new ApiException(ex.getMessage()), HttpStatus.CONFLICT);
+    }
+
+    // A versioned entity was changed by another request between read and write
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<ApiException> handleOptimisticLock(OptimisticLockingFailureException ex) {
+        return new ResponseEntity<>(new ApiException("The record was changed by someone else, reload and try again"),
+                HttpStatus.CONFLICT);
+    }
+
+    // Ends SSE streams (and other async requests) whose connection timed out or went away; the
+    // response may already be an event stream, so there is no JSON body to write
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<Void> handleAsyncTimeout(AsyncRequestTimeoutException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<ApiException> handleRuntime(RuntimeException ex) {
         return new ResponseEntity<>(new ApiException(ex.getMessage()), HttpStatus.BAD_REQUEST);
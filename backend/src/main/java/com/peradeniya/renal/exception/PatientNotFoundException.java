@@ -0,0 +1,10 @@
+package com.peradeniya.renal.exception;
+
+// Unknown PHNs are an expected, frequent outcome (typos, unregistered patients),
+// so this skips stack trace capture and is mapped to 404 by GlobalExceptionHandler.
+public class PatientNotFoundException extends RuntimeException {
+
+    public PatientNotFoundException(String phn) {
+        super("Patient not found with PHN: " + phn, null, false, false);
+    }
+}
@@ -1,5 +1,6 @@
 package com.peradeniya.renal.model;
 
+import com.peradeniya.renal.model.id.PooledId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -11,17 +12,27 @@ import java.util.List;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
 @Entity
+@Table(indexes = @Index(name = "idx_admission_patient_admitted", columnList = "patient_id, admittedOn, id"),
+        uniqueConstraints = {
+                @UniqueConstraint(name = Admission.ACTIVE_PATIENT_CONSTRAINT, columnNames = "active_patient_id"),
+                @UniqueConstraint(name = "uk_admission_bht_number", columnNames = "bhtNumber")})
 @Data 
 @Builder
 @NoArgsConstructor 
 @AllArgsConstructor
 public class Admission {
 
+    public static final String ACTIVE_PATIENT_CONSTRAINT = "uk_admission_active_patient";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
-    // BHT Number e.g., BHT-1001
+    // Optimistic lock: discharge and other read-modify-write updates fail with a 409 when it moved on
+    @Version
+    private Long version;
+
+    // BHT Number e.g., BHT-12-2026-00001 (see BhtSequence)
     @Column(nullable = false)
     private String bhtNumber;
 
@@ -31,6 +42,12 @@ public class Admission {
     private boolean active;
     private boolean dischargeSummaryAvailable;
 
+    // patient_id while the admission is active, else null: unique, so a patient has at most one active admission
+    @Column(name = "active_patient_id", insertable = false, updatable = false,
+            columnDefinition = "bigint generated always as (case when active then patient_id end)")
+    @JsonIgnore
+    private Long activePatientId;
+
     private LocalDate admittedOn;
     private LocalDateTime admissionTime;
 
@@ -1,5 +1,6 @@
 package com.peradeniya.renal.model;
 
+import com.peradeniya.renal.model.id.PooledId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,7 +10,7 @@ import lombok.*;
 public class Allergy {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
     private String allergy;
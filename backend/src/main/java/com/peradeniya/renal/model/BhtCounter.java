@@ -0,0 +1,22 @@
+package com.peradeniya.renal.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Last BHT sequence number reserved for a ward in a year; advanced a block at a time by BhtSequence
+@Entity
+@Table(name = BhtCounter.TABLE_NAME)
+@Data
+@NoArgsConstructor @AllArgsConstructor
+public class BhtCounter {
+
+    public static final String TABLE_NAME = "bht_counter";
+
+    // "<ward code, lower case>/<year>", see BhtSequence
+    @Id
+    @Column(name = "counter_key", length = 150)
+    private String counterKey;
+
+    @Column(name = "last_value", nullable = false)
+    private long lastValue;
+}
@@ -1,5 +1,7 @@
 package com.peradeniya.renal.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.peradeniya.renal.model.id.PooledId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -11,7 +13,7 @@ import java.time.LocalDate;
 public class DischargeSummary {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
     private LocalDate dischargeDate;
@@ -23,10 +25,15 @@ public class DischargeSummary {
     private String drugsFreeHand;
 
     @OneToOne
-    @JoinColumn(name = "admission_id")
+    @JoinColumn(name = "admission_id", unique = true)
     private Admission admission;
 
     @ManyToOne
     @JoinColumn(name = "patient_id")
     private Patient patient;
+
+    // sha256 of the rendered PDF in the artifact store, null until rendered
+    @Column(length = 64)
+    @JsonIgnore
+    private String pdfDigest;
 }
@@ -0,0 +1,32 @@
+package com.peradeniya.renal.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.peradeniya.renal.model.id.PooledId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Fluid totals of one admission for one clock hour; 24h and shift totals are summed from these
+@Entity
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_fluid_bucket_admission_hour", columnNames = {"admission_id", "hourStart"}))
+@Data @Builder
+@NoArgsConstructor @AllArgsConstructor
+public class FluidBalanceBucket {
+
+    @Id
+    @PooledId
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "admission_id", nullable = false)
+    @JsonIgnore
+    private Admission admission;
+
+    @Column(nullable = false)
+    private LocalDateTime hourStart;
+
+    @Embedded
+    @Builder.Default
+    private FluidTotals totals = new FluidTotals();
+}
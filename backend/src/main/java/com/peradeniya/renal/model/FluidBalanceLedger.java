@@ -0,0 +1,31 @@
+package com.peradeniya.renal.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.peradeniya.renal.model.id.PooledId;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+// Admission-to-date fluid totals, kept in step with progress notes by FluidBalanceService
+@Entity
+@Data @Builder
+@NoArgsConstructor @AllArgsConstructor
+public class FluidBalanceLedger {
+
+    @Id
+    @PooledId
+    private Long id;
+
+    @OneToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "admission_id", unique = true, nullable = false)
+    @JsonIgnore
+    private Admission admission;
+
+    @Embedded
+    @Builder.Default
+    private FluidTotals totals = new FluidTotals();
+
+    private LocalDateTime lastNoteAt;
+    private LocalDateTime rebuiltAt;
+}
@@ -0,0 +1,50 @@
+package com.peradeniya.renal.model;
+
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Summed fluid readings of a set of progress notes; missing readings count as 0
+@Embeddable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FluidTotals {
+
+    private long inputMl;
+    private long urineOutputMl;
+    private long pdBalance;
+    private long totalBalance;
+    private int notes;
+
+    public static FluidTotals of(Integer inputMl, Integer urineOutputMl, Integer pdBalance, Integer totalBalance) {
+        return new FluidTotals(orZero(inputMl), orZero(urineOutputMl), orZero(pdBalance), orZero(totalBalance), 1);
+    }
+
+    public static FluidTotals of(ProgressNote note) {
+        return of(note.getInputMl(), note.getUrineOutputMl(), note.getPdBalance(), note.getTotalBalance());
+    }
+
+    public FluidTotals add(FluidTotals other) {
+        inputMl += other.inputMl;
+        urineOutputMl += other.urineOutputMl;
+        pdBalance += other.pdBalance;
+        totalBalance += other.totalBalance;
+        notes += other.notes;
+        return this;
+    }
+
+    // Intake minus urine output
+    public long getNetMl() {
+        return inputMl - urineOutputMl;
+    }
+
+    public FluidTotals copy() {
+        return new FluidTotals(inputMl, urineOutputMl, pdBalance, totalBalance, notes);
+    }
+
+    private static long orZero(Integer value) {
+        return value != null ? value : 0;
+    }
+}
@@ -1,8 +1,11 @@
 package com.peradeniya.renal.model;
 
+import com.peradeniya.renal.model.id.PooledId;
 import jakarta.persistence.*;
 import lombok.*;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
@@ -15,7 +18,7 @@ import java.util.List;
 public class Patient {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -40,16 +43,25 @@ public class Patient {
     // Active status (Admitted / Discharged)
     private String status;
 
-    // Relationships
+    // Admissions so far, the latest one's Admission.number. Only moved by PatientRepository.incrementAdmissionCount
+    // (not updatable through the entity, so saving a stale copy of the patient cannot undo an increment)
+    @Column(nullable = false, updatable = false, columnDefinition = "integer default 0")
+    @Builder.Default
+    private int admissionCount = 0;
+
+    // Relationships (lazy; not serialized since open-in-view is off - use the admissions endpoint)
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
+    @JsonIgnore
     private List<Admission> admissions = new ArrayList<>();
 
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
+    @JsonIgnore
     private List<MedicalProblem> medicalHistory = new ArrayList<>();
 
     @OneToMany(mappedBy = "patient", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
+    @JsonIgnore
     private List<Allergy> allergies = new ArrayList<>();
 }
\ No newline at end of file
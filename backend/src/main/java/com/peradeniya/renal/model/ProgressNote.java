@@ -1,17 +1,19 @@
 package com.peradeniya.renal.model;
 
+import com.peradeniya.renal.model.id.PooledId;
 import jakarta.persistence.*;
 import lombok.*;
 
 import java.time.LocalDateTime;
 
 @Entity
+@Table(indexes = @Index(name = "idx_progress_note_admission_created", columnList = "admission_id, createdAt, id"))
 @Data @Builder
 @NoArgsConstructor @AllArgsConstructor
 public class ProgressNote {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledId
     private Long id;
 
     private LocalDateTime createdAt;
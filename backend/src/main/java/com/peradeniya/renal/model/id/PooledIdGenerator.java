@@ -0,0 +1,146 @@
+package com.peradeniya.renal.model.id;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGeneratorHelper;
+import org.hibernate.id.IntegralDataTypeHolder;
+import org.hibernate.id.enhanced.AccessCallback;
+import org.hibernate.id.enhanced.StandardOptimizerDescriptor;
+import org.hibernate.id.enhanced.TableGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Member;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.Properties;
+
+/**
+ * Table-backed hi/lo id generator. Each entity has its own row in id_allocations whose next_val holds
+ * the last reserved id (not the next free one, despite the column name kept from TableGenerator's
+ * layout); a node reserves the next allocationSize ids per round trip ("pooled-lo") and hands them
+ * out from memory, so inserts need no key read-back and can be sent as JDBC batches.
+ *
+ * The block size comes from the Hibernate setting {@value #ALLOCATION_SIZE_SETTING}
+ * (spring.jpa.properties.renal.id.allocation-size). Changing it is safe at any time because
+ * every reservation starts from the stored value.
+ *
+ * Reservations run on their own connections from {@value #DATA_SOURCE_SETTING}, which must be set
+ * (see IdAllocationDataSource). Taking them from the application pool instead can deadlock it: the
+ * thread refilling a block waits for a second connection while holding the generator lock, and the
+ * threads holding every pooled connection wait for that lock. There is deliberately no fallback to
+ * TableGenerator's own reservation, which reads next_val as the next free id and would hand out
+ * ids already in use.
+ */
+public class PooledIdGenerator extends TableGenerator {
+
+    public static final String TABLE_NAME = "id_allocations";
+    public static final String SEGMENT_COLUMN = "seq_name";
+    // Last reserved id of the segment
+    public static final String VALUE_COLUMN = "next_val";
+    public static final String ALLOCATION_SIZE_SETTING = "renal.id.allocation-size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+    public static final String DATA_SOURCE_SETTING = "renal.id.allocation-data-source";
+
+    private static final String SELECT_SQL =
+            "select " + VALUE_COLUMN + " from " + TABLE_NAME + " where " + SEGMENT_COLUMN + " = ?";
+    private static final String INSERT_SQL =
+            "insert into " + TABLE_NAME + " (" + SEGMENT_COLUMN + ", " + VALUE_COLUMN + ") values (?, ?)";
+    private static final String UPDATE_SQL =
+            "update " + TABLE_NAME + " set " + VALUE_COLUMN + " = ? where " + VALUE_COLUMN + " = ? and " + SEGMENT_COLUMN + " = ?";
+
+    private String segmentValue;
+    private DataSource allocationDataSource;
+
+    // Generators declared through @IdGeneratorType are not configured by Hibernate, so do it here
+    public PooledIdGenerator(PooledId config, Member member, CustomIdGeneratorCreationContext context) {
+        this.segmentValue = segmentFor(member.getDeclaringClass());
+        configure(context.getProperty().getType(), new Properties(), context.getServiceRegistry());
+    }
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) {
+        ConfigurationService settings = serviceRegistry.requireService(ConfigurationService.class);
+        int allocationSize = settings.getSetting(ALLOCATION_SIZE_SETTING, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+        if (!(settings.getSettings().get(DATA_SOURCE_SETTING) instanceof DataSource dataSource)) {
+            throw new HibernateException("No id allocation DataSource set as " + DATA_SOURCE_SETTING
+                    + " (see IdAllocationDataSource); cannot reserve ids for " + segmentValue);
+        }
+        allocationDataSource = dataSource;
+
+        params.setProperty(TABLE_PARAM, TABLE_NAME);
+        params.setProperty(SEGMENT_COLUMN_PARAM, SEGMENT_COLUMN);
+        params.setProperty(VALUE_COLUMN_PARAM, VALUE_COLUMN);
+        params.setProperty(SEGMENT_VALUE_PARAM, segmentValue);
+        params.setProperty(INITIAL_PARAM, "1");
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, StandardOptimizerDescriptor.POOLED_LO.getExternalName());
+        super.configure(type, params, serviceRegistry);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object obj) {
+        return getOptimizer().generate(new AccessCallback() {
+            @Override
+            public IntegralDataTypeHolder getNextValue() {
+                return reserveBlock();
+            }
+
+            @Override
+            public String getTenantIdentifier() {
+                return session.getTenantIdentifier();
+            }
+        });
+    }
+
+    // Moves the stored last reserved id up by one block (compare-and-set, so nodes can race) and
+    // returns the first id of the reserved block, as TableGenerator does
+    private IntegralDataTypeHolder reserveBlock() {
+        try (Connection connection = allocationDataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            while (true) {
+                long lastUsed;
+                try (PreparedStatement select = connection.prepareStatement(SELECT_SQL)) {
+                    select.setString(1, segmentValue);
+                    try (ResultSet rs = select.executeQuery()) {
+                        lastUsed = rs.next() ? rs.getLong(1) : -1;
+                    }
+                }
+                if (lastUsed < 0) {
+                    try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                        insert.setString(1, segmentValue);
+                        insert.setLong(2, 0);
+                        insert.executeUpdate();
+                    } catch (SQLIntegrityConstraintViolationException e) {
+                        // inserted concurrently
+                    }
+                    continue;
+                }
+                try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+                    update.setLong(1, lastUsed + getIncrementSize());
+                    update.setLong(2, lastUsed);
+                    update.setString(3, segmentValue);
+                    if (update.executeUpdate() == 1) {
+                        IntegralDataTypeHolder value = IdentifierGeneratorHelper.getIntegralDataTypeHolder(Long.class);
+                        value.initialize(lastUsed + 1);
+                        return value;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new HibernateException("Could not reserve ids for " + segmentValue, e);
+        }
+    }
+
+    // One segment per entity, named like its table (ProgressNote -> progress_note)
+    public static String segmentFor(Class<?> entityClass) {
+        return entityClass.getSimpleName().replaceAll("([a-z0-9])([A-Z])", "$1_$2").toLowerCase();
+    }
+}
@@ -2,21 +2,66 @@ package com.peradeniya.renal.repository;
 
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.service.census.BedAssignment;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface AdmissionRepository extends JpaRepository<Admission, Long> {
     
+    @Transactional(readOnly = true)
     List<Admission> findByPatientOrderByAdmittedOnDesc(Patient patient);
     
     // FIXED: Use correct field name - 'active' not 'Active'
+    @Transactional(readOnly = true)
     Optional<Admission> findByPatientAndActiveTrue(Patient patient);
     
+    @Transactional(readOnly = true)
     List<Admission> findByPatientPhnOrderByAdmittedOnDesc(String phn);
     
     List<Admission> findByPatient(Patient patient);
-}
\ No newline at end of file
+
+    // Keyset pages over (admittedOn desc nulls last, id desc). The discharge summary is fetched in the
+    // same query because the inverse one-to-one would otherwise be loaded with one select per row.
+    @Query("select a from Admission a left join fetch a.dischargeSummary "
+            + "where a.patient = :patient "
+            + "order by a.admittedOn desc nulls last, a.id desc")
+    @Transactional(readOnly = true)
+    List<Admission> findPage(@Param("patient") Patient patient, Limit limit);
+
+    @Query("select a from Admission a left join fetch a.dischargeSummary "
+            + "where a.patient = :patient "
+            + "and (a.admittedOn < :admittedOn or (a.admittedOn = :admittedOn and a.id < :id) or a.admittedOn is null) "
+            + "order by a.admittedOn desc nulls last, a.id desc")
+    @Transactional(readOnly = true)
+    List<Admission> findPageAfter(@Param("patient") Patient patient,
+                                  @Param("admittedOn") LocalDate admittedOn,
+                                  @Param("id") Long id,
+                                  Limit limit);
+
+    @Query("select a from Admission a left join fetch a.dischargeSummary "
+            + "where a.patient = :patient and a.admittedOn is null and a.id < :id "
+            + "order by a.id desc")
+    @Transactional(readOnly = true)
+    List<Admission> findPageAfterUndated(@Param("patient") Patient patient, @Param("id") Long id, Limit limit);
+
+    // Ownership checks for batched writes: admissions and their patients in one query
+    @Query("select a from Admission a join fetch a.patient left join fetch a.dischargeSummary where a.id in :ids")
+    List<Admission> findAllWithPatientByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query("select a.id from Admission a where a.active = true")
+    List<Long> findActiveIds();
+
+    @Query("select new com.peradeniya.renal.service.census.BedAssignment(a.id, a.ward, a.wardNumber, a.bedId) "
+            + "from Admission a where a.active = true")
+    List<BedAssignment> findActiveBedAssignments();
+}
@@ -1,8 +1,39 @@
 package com.peradeniya.renal.repository;
 
 import com.peradeniya.renal.model.DischargeSummary;
+import com.peradeniya.renal.service.pdf.DischargeExportEntry;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.List;
 
 public interface DischargeSummaryRepository extends JpaRepository<DischargeSummary, Long> {
+    @Transactional(readOnly = true)
     DischargeSummary findByAdmissionId(Long admissionId);
+
+    @Modifying
+    @Transactional
+    @Query("update DischargeSummary d set d.pdfDigest = :digest where d.id = :id")
+    int updatePdfDigest(@Param("id") Long id, @Param("digest") String digest);
+
+    // Keyset pages (by id) of summaries to export. ward matches the census ward key: the admission's
+    // ward number, or its ward name when it has no number. Null filters match everything.
+    @Query("select new com.peradeniya.renal.service.pdf.DischargeExportEntry(d.id, d.dischargeDate, a.bhtNumber, p.phn, d.pdfDigest) "
+            + "from DischargeSummary d join d.admission a join a.patient p "
+            + "where d.id > :afterId "
+            + "and (:ward is null or lower(a.wardNumber) = :ward "
+            + "     or ((a.wardNumber is null or a.wardNumber = '') and lower(a.ward) = :ward)) "
+            + "and (:from is null or d.dischargeDate >= :from) "
+            + "and (:to is null or d.dischargeDate <= :to) "
+            + "order by d.id")
+    List<DischargeExportEntry> findExportPage(@Param("ward") String ward,
+                                              @Param("from") LocalDate from,
+                                              @Param("to") LocalDate to,
+                                              @Param("afterId") Long afterId,
+                                              Limit limit);
 }
@@ -0,0 +1,36 @@
+package com.peradeniya.renal.repository;
+
+import com.peradeniya.renal.model.FluidBalanceBucket;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface FluidBalanceBucketRepository extends JpaRepository<FluidBalanceBucket, Long> {
+
+    @Query("select b from FluidBalanceBucket b where b.admission.id = :admissionId and b.hourStart >= :from")
+    List<FluidBalanceBucket> findSince(@Param("admissionId") Long admissionId, @Param("from") LocalDateTime from);
+
+    @Modifying
+    @Query("update FluidBalanceBucket b set "
+            + "b.totals.inputMl = b.totals.inputMl + :inputMl, "
+            + "b.totals.urineOutputMl = b.totals.urineOutputMl + :urineOutputMl, "
+            + "b.totals.pdBalance = b.totals.pdBalance + :pdBalance, "
+            + "b.totals.totalBalance = b.totals.totalBalance + :totalBalance, "
+            + "b.totals.notes = b.totals.notes + :notes "
+            + "where b.admission.id = :admissionId and b.hourStart = :hourStart")
+    int increment(@Param("admissionId") Long admissionId,
+                  @Param("hourStart") LocalDateTime hourStart,
+                  @Param("inputMl") long inputMl,
+                  @Param("urineOutputMl") long urineOutputMl,
+                  @Param("pdBalance") long pdBalance,
+                  @Param("totalBalance") long totalBalance,
+                  @Param("notes") int notes);
+
+    @Modifying
+    @Query("delete from FluidBalanceBucket b where b.admission.id = :admissionId")
+    int deleteByAdmission(@Param("admissionId") Long admissionId);
+}
@@ -0,0 +1,40 @@
+package com.peradeniya.renal.repository;
+
+import com.peradeniya.renal.model.FluidBalanceLedger;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public interface FluidBalanceLedgerRepository extends JpaRepository<FluidBalanceLedger, Long> {
+
+    Optional<FluidBalanceLedger> findByAdmissionId(Long admissionId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select l from FluidBalanceLedger l where l.admission.id = :admissionId")
+    Optional<FluidBalanceLedger> findForUpdate(@Param("admissionId") Long admissionId);
+
+    // Returns 0 when the admission has no ledger yet. The row lock taken here also serializes
+    // the hourly bucket upserts of concurrent writers for the same admission.
+    @Modifying
+    @Query("update FluidBalanceLedger l set "
+            + "l.totals.inputMl = l.totals.inputMl + :inputMl, "
+            + "l.totals.urineOutputMl = l.totals.urineOutputMl + :urineOutputMl, "
+            + "l.totals.pdBalance = l.totals.pdBalance + :pdBalance, "
+            + "l.totals.totalBalance = l.totals.totalBalance + :totalBalance, "
+            + "l.totals.notes = l.totals.notes + :notes, "
+            + "l.lastNoteAt = case when l.lastNoteAt is null or l.lastNoteAt < :noteAt then :noteAt else l.lastNoteAt end "
+            + "where l.admission.id = :admissionId")
+    int increment(@Param("admissionId") Long admissionId,
+                  @Param("inputMl") long inputMl,
+                  @Param("urineOutputMl") long urineOutputMl,
+                  @Param("pdBalance") long pdBalance,
+                  @Param("totalBalance") long totalBalance,
+                  @Param("notes") int notes,
+                  @Param("noteAt") LocalDateTime noteAt);
+}
@@ -1,10 +1,55 @@
 package com.peradeniya.renal.repository;
 
+import com.peradeniya.renal.dto.PatientResponse;
+import com.peradeniya.renal.dto.PatientSearchResult;
 import com.peradeniya.renal.model.Patient;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+    @Transactional(readOnly = true)
     Optional<Patient> findByPhn(String phn);
+
+    // Patient row + its active admission in one round trip, projected straight into the DTO
+    // so no entity (and none of the admissions/progressNotes/dischargeSummary graph) is loaded.
+    @Query("""
+            select new com.peradeniya.renal.dto.PatientResponse(
+                p.id, p.phn, p.name, p.dob, p.sex, p.status,
+                p.address, p.phone, p.nic, p.mohArea, p.ethnicGroup,
+                p.religion, p.occupation, p.maritalStatus, p.admissionCount,
+                a.bhtNumber, a.ward, a.wardNumber, a.bedId,
+                a.admittedOn, a.admissionTime, a.consultantName,
+                a.referredBy, a.primaryDiagnosis, a.admissionType,
+                a.admittingOfficer, a.presentingComplaints,
+                a.examTempC, a.examHeightCm, a.examWeightKg, a.examBMI,
+                a.examBloodPressure, a.examHeartRate,
+                a.id, a.active)
+            from Patient p
+            left join p.admissions a on a.active = true
+            where p.phn = :phn
+            order by a.id desc
+            """)
+    @Transactional(readOnly = true)
+    List<PatientResponse> findResponsesByPhn(@Param("phn") String phn);
+
+    // Row-locks the patient until commit, so concurrent admissions of one patient get consecutive numbers
+    @Modifying
+    @Query("update Patient p set p.admissionCount = p.admissionCount + 1 where p.id = :id")
+    int incrementAdmissionCount(@Param("id") Long id);
+
+    @Query("select p.admissionCount from Patient p where p.id = :id")
+    int findAdmissionCount(@Param("id") Long id);
+
+    // Only the columns the search index needs, for the startup load
+    @Query("select new com.peradeniya.renal.dto.PatientSearchResult(p.id, p.phn, p.name, p.nic, p.phone) from Patient p")
+    List<PatientSearchResult> findAllSearchEntries();
+
+    @Query("select p.phn from Patient p")
+    List<String> findAllPhns();
 }
@@ -1,10 +1,66 @@
 package com.peradeniya.renal.repository;
 
 import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.service.vitals.VitalsReading;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface ProgressNoteRepository extends JpaRepository<ProgressNote, Long> {
+    @Transactional(readOnly = true)
     List<ProgressNote> findByAdmissionIdOrderByCreatedAtDesc(Long admissionId);
+
+    // Keyset pages over (createdAt desc nulls last, id desc), served by idx_progress_note_admission_created
+    @Query("select n from ProgressNote n where n.admission.id = :admissionId "
+            + "order by n.createdAt desc nulls last, n.id desc")
+    @Transactional(readOnly = true)
+    List<ProgressNote> findPage(@Param("admissionId") Long admissionId, Limit limit);
+
+    @Query("select n from ProgressNote n where n.admission.id = :admissionId "
+            + "and (n.createdAt < :createdAt or (n.createdAt = :createdAt and n.id < :id) or n.createdAt is null) "
+            + "order by n.createdAt desc nulls last, n.id desc")
+    @Transactional(readOnly = true)
+    List<ProgressNote> findPageAfter(@Param("admissionId") Long admissionId,
+                                     @Param("createdAt") LocalDateTime createdAt,
+                                     @Param("id") Long id,
+                                     Limit limit);
+
+    @Query("select n from ProgressNote n where n.admission.id = :admissionId "
+            + "and n.createdAt is null and n.id < :id "
+            + "order by n.id desc")
+    @Transactional(readOnly = true)
+    List<ProgressNote> findPageAfterUndated(@Param("admissionId") Long admissionId, @Param("id") Long id, Limit limit);
+
+    // Scalar rows for building a vitals series without materializing notes
+    @Query("select new com.peradeniya.renal.service.vitals.VitalsReading(n.id, n.createdAt, n.tempC, n.weightKg, "
+            + "n.bpHigh, n.bpLow, n.heartRate, n.inputMl, n.urineOutputMl, n.pdBalance, n.totalBalance) "
+            + "from ProgressNote n where n.admission.id = :admissionId and n.createdAt is not null "
+            + "order by n.createdAt, n.id")
+    @Transactional(readOnly = true)
+    List<VitalsReading> findVitalsByAdmissionId(@Param("admissionId") Long admissionId);
+
+    // Same projection including undated notes, for recomputing fluid totals
+    @Query("select new com.peradeniya.renal.service.vitals.VitalsReading(n.id, n.createdAt, n.tempC, n.weightKg, "
+            + "n.bpHigh, n.bpLow, n.heartRate, n.inputMl, n.urineOutputMl, n.pdBalance, n.totalBalance) "
+            + "from ProgressNote n where n.admission.id = :admissionId")
+    @Transactional(readOnly = true)
+    List<VitalsReading> findReadingsByAdmissionId(@Param("admissionId") Long admissionId);
+
+    // Scrolls the notes oldest first for reports; must be consumed inside a transaction. With MySQL the
+    // fetch size only streams because the URL sets useCursorFetch=true.
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("select new com.peradeniya.renal.service.vitals.VitalsReading(n.id, n.createdAt, n.tempC, n.weightKg, "
+            + "n.bpHigh, n.bpLow, n.heartRate, n.inputMl, n.urineOutputMl, n.pdBalance, n.totalBalance) "
+            + "from ProgressNote n where n.admission.id = :admissionId "
+            + "order by n.createdAt nulls first, n.id")
+    Stream<VitalsReading> streamReadingsByAdmissionId(@Param("admissionId") Long admissionId);
 }
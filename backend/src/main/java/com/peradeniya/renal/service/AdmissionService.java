@@ -1,39 +1,60 @@
 package com.peradeniya.renal.service;
 
+import com.peradeniya.renal.dto.CursorPage;
 import com.peradeniya.renal.dto.PatientCreateRequest;
+import com.peradeniya.renal.dto.WardEvent;
+import com.peradeniya.renal.exception.AdmissionNotFoundException;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.Patient;
 import com.peradeniya.renal.repository.AdmissionRepository;
+import com.peradeniya.renal.repository.PatientRepository;
+import com.peradeniya.renal.service.bht.BhtSequence;
+import com.peradeniya.renal.service.cache.PatientResponseCache;
+import com.peradeniya.renal.service.cache.ResponseVersions;
+import com.peradeniya.renal.service.census.WardCensus;
+import com.peradeniya.renal.service.fluid.FluidBalanceService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AdmissionService {
 
     private final AdmissionRepository admissionRepository;
+    private final PatientRepository patientRepository;
+    private final PatientResponseCache patientResponseCache;
+    private final ResponseVersions responseVersions;
+    private final WardCensus wardCensus;
+    private final FluidBalanceService fluidBalanceService;
+    private final BhtSequence bhtSequence;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Admission createAdmission(Patient patient, PatientCreateRequest request) {
-        System.out.println("➕ Creating admission for patient: " + patient.getPhn());
-        
+        log.debug("Creating admission for patient {}", patient.getPhn());
+
         Admission admission = new Admission();
         admission.setPatient(patient);
         admission.setWard(request.getWard());
         admission.setWardNumber(request.getWardNumber());
         admission.setBedId(request.getBedId());
-        admission.setAdmittedOn(request.getAdmissionDate());
+        admission.setAdmittedOn(request.getAdmissionDate() != null ? request.getAdmissionDate() : LocalDate.now());
         
         LocalDateTime admissionTime = request.getAdmissionTimeAsLocalDateTime();
         if (admissionTime != null) {
             admission.setAdmissionTime(admissionTime);
-            System.out.println("⏰ Setting admission time to: " + admissionTime);
+            log.debug("Admission time {}", admissionTime);
         } else {
             admission.setAdmissionTime(LocalDateTime.now());
-            System.out.println("⏰ Using current time for admission");
+            log.debug("No admission time given, using the current time");
         }
         
         admission.setAdmissionType(request.getAdmissionType());
@@ -50,52 +71,91 @@ public class AdmissionService {
         admission.setExamBloodPressure(request.getBloodPressure());
         admission.setExamHeartRate(request.getHeartRate());
 
-        // Generate BHT number and set admission number
-        String bhtNumber = "BHT-" + patient.getPhn() + "-" + System.currentTimeMillis();
-        admission.setBhtNumber(bhtNumber);
-        admission.setNumber(1); // First admission
+        admission.setBhtNumber(bhtSequence.next(admission.getWard(), admission.getWardNumber(),
+                admission.getAdmittedOn().getYear()));
+        admission.setNumber(nextAdmissionNumber(patient));
         
         // FIXED: Set both active flags properly
         admission.setActive(true);
         admission.setDischargeSummaryAvailable(false);
 
         Admission savedAdmission = admissionRepository.save(admission);
-        System.out.println("✅ Admission created with ID: " + savedAdmission.getId() + 
-                          ", BHT: " + savedAdmission.getBhtNumber() + 
-                          ", Active: " + savedAdmission.isActive());
+        log.atInfo()
+                .addKeyValue("phn", patient.getPhn())
+                .addKeyValue("admissionId", savedAdmission.getId())
+                .addKeyValue("bht", savedAdmission.getBhtNumber())
+                .log("Admission created");
+        fluidBalanceService.openLedger(savedAdmission);
+        patientResponseCache.evict(patient.getPhn());
+        responseVersions.patientChanged(patient.getPhn());
+        wardCensus.admit(savedAdmission);
+        eventPublisher.publishEvent(WardEvent.admitted(savedAdmission));
         return savedAdmission;
     }
 
+    // Counts the admission against the patient in the current transaction and returns its number (1 = first)
+    private int nextAdmissionNumber(Patient patient) {
+        patientRepository.incrementAdmissionCount(patient.getId());
+        int number = patientRepository.findAdmissionCount(patient.getId());
+        patient.setAdmissionCount(number);
+        return number;
+    }
+
     public Admission getById(Long id) {
         return admissionRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Admission not found with id: " + id));
+                .orElseThrow(() -> new AdmissionNotFoundException(id));
     }
 
     public List<Admission> getAdmissionsByPatientPhn(String phn) {
         String cleanPhn = phn.replaceAll("[^0-9]", "");
-        System.out.println("📥 Getting admissions for PHN: " + cleanPhn);
+        log.debug("Getting admissions for patient {}", cleanPhn);
         return admissionRepository.findByPatientPhnOrderByAdmittedOnDesc(cleanPhn);
     }
 
     public Optional<Admission> getActiveAdmission(Patient patient) {
-        System.out.println("🔍 Repository query for active admission - Patient ID: " + patient.getId() + ", PHN: " + patient.getPhn());
         Optional<Admission> result = admissionRepository.findByPatientAndActiveTrue(patient);
-        System.out.println("🔍 Active admission found: " + result.isPresent());
-        if (result.isPresent()) {
-            System.out.println("🔍 Admission details - ID: " + result.get().getId() + ", Active: " + result.get().isActive());
-        }
+        log.debug("Active admission for patient {}: {}", patient.getPhn(), result.map(Admission::getId).orElse(null));
         return result;
     }
 
     public List<Admission> getAdmissionsForPatient(Patient patient) {
-        System.out.println("📋 Getting all admissions for patient: " + patient.getPhn());
         List<Admission> admissions = admissionRepository.findByPatientOrderByAdmittedOnDesc(patient);
-        System.out.println("📋 Found " + admissions.size() + " admissions");
-        admissions.forEach(adm -> System.out.println("   - ID: " + adm.getId() + ", Active: " + adm.isActive() + ", BHT: " + adm.getBhtNumber()));
+        log.debug("Found {} admissions for patient {}", admissions.size(), patient.getPhn());
         return admissions;
     }
 
+    public CursorPage<Admission> getAdmissionsPage(Patient patient, int limit, String after) {
+        Limit fetch = Limit.of(limit + 1);
+        List<Admission> rows;
+        if (after == null) {
+            rows = admissionRepository.findPage(patient, fetch);
+        } else {
+            CursorPage.Cursor cursor = CursorPage.decodeCursor(after);
+            rows = cursor.sortKey() == null
+                    ? admissionRepository.findPageAfterUndated(patient, cursor.id(), fetch)
+                    : admissionRepository.findPageAfter(patient, LocalDate.parse(cursor.sortKey()), cursor.id(), fetch);
+        }
+        return CursorPage.of(rows, limit, a -> CursorPage.encodeCursor(a.getAdmittedOn(), a.getId()));
+    }
+
+    // Writes the admission now, so a concurrent change to it fails here rather than at commit
+    public Admission saveAndFlush(Admission admission) {
+        Admission saved = admissionRepository.saveAndFlush(admission);
+        if (saved.getPatient() != null) {
+            patientResponseCache.evict(saved.getPatient().getPhn());
+            responseVersions.patientChanged(saved.getPatient().getPhn());
+        }
+        responseVersions.admissionChanged(saved.getId());
+        return saved;
+    }
+
     public Admission save(Admission admission) {
-        return admissionRepository.save(admission);
+        Admission saved = admissionRepository.save(admission);
+        if (saved.getPatient() != null) {
+            patientResponseCache.evict(saved.getPatient().getPhn());
+            responseVersions.patientChanged(saved.getPatient().getPhn());
+        }
+        responseVersions.admissionChanged(saved.getId());
+        return saved;
     }
 }
\ No newline at end of file
@@ -1,45 +1,77 @@
 package com.peradeniya.renal.service;
 
 import com.peradeniya.renal.dto.DischargeSummaryRequest;
+import com.peradeniya.renal.dto.WardEvent;
+import com.peradeniya.renal.exception.ConflictException;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.DischargeSummary;
 import com.peradeniya.renal.model.Patient;
 import com.peradeniya.renal.repository.DischargeSummaryRepository;
+import com.peradeniya.renal.service.cache.PatientResponseCache;
+import com.peradeniya.renal.service.cache.ResponseVersions;
+import com.peradeniya.renal.service.census.WardCensus;
+import com.peradeniya.renal.service.pdf.PdfRenderQueue;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class DischargeSummaryService {
 
     private final DischargeSummaryRepository dischargeSummaryRepository;
     private final AdmissionService admissionService;
+    private final PatientResponseCache patientResponseCache;
+    private final ResponseVersions responseVersions;
+    private final WardCensus wardCensus;
+    private final ApplicationEventPublisher eventPublisher;
+    private final PdfRenderQueue pdfRenderQueue;
 
+    /**
+     * Discharges the admission and stores its summary in one transaction. The admission's version
+     * decides between concurrent discharges: the loser gets a ConflictException / optimistic lock
+     * failure (409) instead of waiting on a row lock, and at most one summary exists per admission.
+     */
+    @Transactional
     public DischargeSummary create(Long admissionId, Patient patient, DischargeSummaryRequest req) {
-        System.out.println("Creating discharge summary for admission: " + admissionId);
-        System.out.println("Request data: " + req);
-        
+        log.debug("Creating discharge summary for admission {}: {}", admissionId, req);
+
         Admission admission = admissionService.getById(admissionId);
-        
+
         if (!admission.getPatient().getId().equals(patient.getId())) {
             throw new RuntimeException("Admission does not belong to patient");
         }
+        if (!admission.isActive() || admission.getDischargeSummary() != null) {
+            throw new ConflictException("Admission " + admissionId + " has already been discharged");
+        }
+        if (req.getAdmissionVersion() != null && !req.getAdmissionVersion().equals(admission.getVersion())) {
+            throw new ConflictException("Admission " + admissionId + " was changed since version "
+                    + req.getAdmissionVersion() + ", reload and try again");
+        }
+
+        // Claim the admission first; the versioned update fails fast for the second of two discharges
+        admission.setActive(false);
+        admission.setDischargeSummaryAvailable(true);
+        admissionService.saveAndFlush(admission);
 
         DischargeSummary ds = new DischargeSummary();
         ds.setAdmission(admission);
-        
-        // Parse discharge date
+        ds.setPatient(admission.getPatient());
+
         LocalDate dischargeDate = req.getDischargeDateAsLocalDate();
         if (dischargeDate != null) {
             ds.setDischargeDate(dischargeDate);
-            System.out.println("Set discharge date to: " + dischargeDate);
         } else {
             ds.setDischargeDate(LocalDate.now());
-            System.out.println("Using current date as discharge date");
+            log.debug("No discharge date given, using today");
         }
-        
+
         ds.setDiagnosis(req.getDiagnosis());
         ds.setIcd10(req.getIcd10());
         ds.setProgressSummary(req.getProgressSummary());
@@ -47,14 +79,30 @@ public class DischargeSummaryService {
         ds.setDischargePlan(req.getDischargePlan());
         ds.setDrugsFreeHand(req.getDrugsFreeHand());
 
-        DischargeSummary savedDs = dischargeSummaryRepository.save(ds);
-        
-        // Update admission to mark as having discharge summary
-        admission.setDischargeSummaryAvailable(true); 
-        admission.setActive(false);
-        admissionService.save(admission); // You'll need to add this method to AdmissionService
-        
-        System.out.println("Discharge summary created with ID: " + savedDs.getId());
+        DischargeSummary savedDs;
+        try {
+            savedDs = dischargeSummaryRepository.saveAndFlush(ds);
+        } catch (DataIntegrityViolationException e) {
+            // Unique admission_id: a summary written without going through the admission check
+            throw new ConflictException("Admission " + admissionId + " already has a discharge summary");
+        }
+        // Keeps the managed admission consistent; with a null dischargeSummary, orphan removal would delete the row
+        admission.setDischargeSummary(savedDs);
+
+        String phn = patient.getPhn();
+        TransactionHooks.afterCommit(() -> patientResponseCache.evict(phn));
+        responseVersions.patientChanged(phn);
+        responseVersions.admissionChanged(admission.getId());
+        wardCensus.discharge(admission.getId());
+        eventPublisher.publishEvent(WardEvent.discharged(admission));
+
+        // The summary does not change after this point, so its PDF is rendered once, ahead of the first download
+        TransactionHooks.afterCommit(() -> pdfRenderQueue.submit(savedDs.getId()));
+
+        log.atInfo()
+                .addKeyValue("admissionId", admissionId)
+                .addKeyValue("dischargeSummaryId", savedDs.getId())
+                .log("Discharge summary created");
         return savedDs;
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,34 @@
 package com.peradeniya.renal.service;
 
 import com.peradeniya.renal.dto.PatientCreateRequest;
+import com.peradeniya.renal.dto.PatientResponse;
+import com.peradeniya.renal.dto.PatientSearchResult;
+import com.peradeniya.renal.dto.WardEvent;
+import com.peradeniya.renal.exception.ConflictException;
+import com.peradeniya.renal.exception.PatientNotFoundException;
 import com.peradeniya.renal.mapper.PatientMapper;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.Patient;
 import com.peradeniya.renal.repository.PatientRepository;
+import com.peradeniya.renal.service.cache.PatientResponseCache;
+import com.peradeniya.renal.service.cache.ResponseVersions;
+import com.peradeniya.renal.service.cache.PhnBloomFilter;
+import com.peradeniya.renal.service.routing.ReadYourWrites;
+import com.peradeniya.renal.service.search.PatientSearchIndex;
+import com.peradeniya.renal.service.vitals.VitalsStore;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PatientService {
@@ -17,79 +36,126 @@ public class PatientService {
     private final PatientRepository patientRepository;
     private final PatientMapper mapper;
     private final AdmissionService admissionService;
+    private final PatientResponseCache patientResponseCache;
+    private final ResponseVersions responseVersions;
+    private final PatientSearchIndex patientSearchIndex;
+    private final PhnBloomFilter phnBloomFilter;
+    private final VitalsStore vitalsStore;
+    private final ReadYourWrites readYourWrites;
+    private final PhnLocks phnLocks;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
 
+    /**
+     * Registers the patient and their first admission in one transaction. Registrations of the same PHN
+     * are serialized by {@link PhnLocks} (held until commit), so a repeat finds the first one and gets a
+     * 409; the unique PHN and active-admission constraints catch whatever gets past that (other nodes).
+     * The PHN is cleaned first so that "123-456" and "123456" take the same lock and row.
+     */
     public Patient createPatient(PatientCreateRequest request) {
-        // Check if patient already exists
-        Optional<Patient> existingPatient = findByPhn(request.getPhn());
-        if (existingPatient.isPresent()) {
-            throw new RuntimeException("Patient with PHN " + request.getPhn() + " already exists");
+        String phn = request.getPhn() == null ? "" : request.getPhn().replaceAll("[^0-9]", "");
+        if (phn.isEmpty()) {
+            throw new IllegalArgumentException("PHN must contain digits");
+        }
+        Patient savedPatient;
+        try {
+            savedPatient = phnLocks.withLock(phn, () -> transactionTemplate.execute(status -> {
+                if (findByPhn(phn).isPresent()) {
+                    throw new ConflictException("Patient with PHN " + phn + " already exists");
+                }
+                Patient patient = mapper.toPatient(request);
+                patient.setPhn(phn);
+                Patient saved = patientRepository.save(patient);
+                Admission admission = admissionService.createAdmission(saved, request);
+                log.atInfo()
+                        .addKeyValue("phn", saved.getPhn())
+                        .addKeyValue("admissionId", admission.getId())
+                        .log("Patient registered");
+                return saved;
+            }));
+        } catch (DataIntegrityViolationException e) {
+            throw new ConflictException("Patient with PHN " + phn + " already exists or already has an active admission");
         }
 
-        // Create patient
-        Patient patient = mapper.toPatient(request);
-        Patient savedPatient = patientRepository.save(patient);
-
-        // Create admission
-        Admission admission = admissionService.createAdmission(savedPatient, request);
-        System.out.println("✅ Created admission: " + admission.getId() + " for patient: " + savedPatient.getPhn());
-        System.out.println("✅ Admission active status: " + admission.isActive());
-
+        patientResponseCache.evict(savedPatient.getPhn());
+        responseVersions.patientChanged(savedPatient.getPhn());
+        patientSearchIndex.add(savedPatient);
+        phnBloomFilter.put(savedPatient.getPhn());
+        readYourWrites.written(savedPatient.getPhn());
         return savedPatient;
     }
 
     public Optional<Patient> findByPhn(String phn) {
         String cleanPhn = phn.replaceAll("[^0-9]", "");
-        System.out.println("🔍 Searching for patient with cleaned PHN: " + cleanPhn);
+        log.debug("Looking up patient {}", cleanPhn);
+        if (!phnBloomFilter.mightContain(cleanPhn)) {
+            return Optional.empty();
+        }
         return patientRepository.findByPhn(cleanPhn);
     }
 
     public Patient updatePatientStatus(String phn, String status) {
         String cleanPhn = phn.replaceAll("[^0-9]", "");
         Patient patient = findByPhn(cleanPhn)
-                .orElseThrow(() -> new RuntimeException("Patient not found with PHN: " + cleanPhn));
+                .orElseThrow(() -> new PatientNotFoundException(cleanPhn));
         
         patient.setStatus(status);
-        return patientRepository.save(patient);
+        Patient saved = patientRepository.save(patient);
+        patientResponseCache.evict(cleanPhn);
+        responseVersions.patientChanged(cleanPhn);
+        admissionService.getActiveAdmission(saved)
+                .ifPresent(admission -> eventPublisher.publishEvent(WardEvent.statusChanged(admission, status)));
+        return saved;
     }
 
     public Optional<Admission> getActiveAdmission(Patient patient) {
-        System.out.println("🔍 Looking for active admission for patient: " + patient.getPhn());
-        Optional<Admission> admissionOpt = admissionService.getActiveAdmission(patient);
-        
-        if (admissionOpt.isPresent()) {
-            System.out.println("✅ Found active admission: " + admissionOpt.get().getId());
-        } else {
-            System.out.println("❌ No active admission found for patient: " + patient.getPhn());
-            // Let's check if there are any admissions at all
-            var allAdmissions = admissionService.getAdmissionsForPatient(patient);
-            System.out.println("📋 Total admissions for patient: " + allAdmissions.size());
-            allAdmissions.forEach(adm -> System.out.println("   - Admission " + adm.getId() + ", active: " + adm.isActive()));
-        }
-        
-        return admissionOpt;
+        return admissionService.getActiveAdmission(patient);
     }
     
+    public List<PatientSearchResult> search(String query, int limit) {
+        return patientSearchIndex.search(query, Math.max(1, Math.min(limit, 50)));
+    }
+
+    public long getAdmissionCount(Patient patient) {
+        return patient.getAdmissionCount();
+    }
+
+    public PatientResponse getPatientResponse(String phn) {
+        String cleanPhn = phn.replaceAll("[^0-9]", "");
+        // Definite miss: answer before touching the cache loader or opening a transaction
+        if (!phnBloomFilter.mightContain(cleanPhn)) {
+            throw new PatientNotFoundException(cleanPhn);
+        }
+        return patientResponseCache.get(cleanPhn, key -> {
+            log.debug("Loading PatientResponse for {}", key);
+            // Newest active admission first if the patient somehow has more than one
+            return patientRepository.findResponsesByPhn(key).stream()
+                    .findFirst()
+                    .orElseThrow(() -> new PatientNotFoundException(key));
+        });
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = new LinkedHashMap<>(patientResponseCache.stats());
+        stats.put("phnFilter", phnBloomFilter.stats());
+        stats.put("vitals", vitalsStore.stats());
+        return stats;
+    }
+
    public Patient getPatientByPhn(String phn) {
     String cleanPhn = phn.replaceAll("[^0-9]", "");
-    System.out.println("🔍 PATIENT SERVICE: Getting patient by PHN: " + cleanPhn);
+    log.debug("Getting patient {}", cleanPhn);
     
     Optional<Patient> patientOpt = findByPhn(cleanPhn);
     
     if (patientOpt.isPresent()) {
         Patient patient = patientOpt.get();
-        System.out.println("✅ PATIENT SERVICE: Found patient - ID: " + patient.getId() + ", Name: " + patient.getName());
-        System.out.println("✅ PATIENT SERVICE: Patient status: " + patient.getStatus());
-        System.out.println("✅ PATIENT SERVICE: Total admissions: " + patient.getAdmissions().size());
-        
-        // Log all admissions
-        patient.getAdmissions().forEach(adm -> {
-            System.out.println("   📋 Admission ID: " + adm.getId() + ", Active: " + adm.isActive() + ", BHT: " + adm.getBhtNumber());
-        });
+        log.debug("Found patient {} with status {}", patient.getId(), patient.getStatus());
         
         return patient;
     } else {
-        System.out.println("❌ PATIENT SERVICE: No patient found with PHN: " + cleanPhn);
-        throw new RuntimeException("Patient not found with PHN: " + cleanPhn);
+        log.debug("No patient with PHN {}", cleanPhn);
+        throw new PatientNotFoundException(cleanPhn);
     }
 }
 }
\ No newline at end of file
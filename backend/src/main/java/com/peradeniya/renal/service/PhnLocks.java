@@ -0,0 +1,56 @@
+package com.peradeniya.renal.service;
+
+import com.peradeniya.renal.exception.ConflictException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Striped in-process locks keyed by PHN, so concurrent registrations of one patient (double clicks,
+ * retries) run one after the other and the second finds the first's rows, while different patients
+ * almost never share a stripe. Waiting is bounded: past the timeout the request gets a 409.
+ * The database constraints still decide across several nodes.
+ */
+@Component
+public class PhnLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutNanos;
+
+    public PhnLocks(
+            @Value("${renal.registration.lock-stripes:64}") int stripes,
+            @Value("${renal.registration.lock-timeout:2s}") Duration timeout) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+        this.timeoutNanos = timeout.toNanos();
+    }
+
+    public <T> T withLock(String phn, Supplier<T> action) {
+        ReentrantLock lock = stripes[stripe(phn)];
+        try {
+            if (!lock.tryLock(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                throw new ConflictException("Another registration for PHN " + phn + " is in progress, try again");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictException("Interrupted while waiting to register PHN " + phn);
+        }
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(String phn) {
+        int h = phn.hashCode();
+        return (h ^ (h >>> 16)) & (stripes.length - 1);
+    }
+}
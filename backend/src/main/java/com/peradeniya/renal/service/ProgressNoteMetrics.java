@@ -0,0 +1,34 @@
+package com.peradeniya.renal.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+// Progress notes recorded, by how they came in; registered once so the write path only increments
+@Component
+public class ProgressNoteMetrics {
+
+    private final Counter single;
+    private final Counter batch;
+
+    public ProgressNoteMetrics(MeterRegistry meterRegistry) {
+        this.single = notes(meterRegistry, "single");
+        this.batch = notes(meterRegistry, "batch");
+    }
+
+    // Notes per minute is rate(renal_progress_notes_total[1m]) * 60 on the Prometheus side
+    public void countNotes(boolean batched, int count) {
+        if (count == 0) {
+            return;
+        }
+        Counter counter = batched ? batch : single;
+        TransactionHooks.afterCommit(() -> counter.increment(count));
+    }
+
+    private static Counter notes(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("renal.progress.notes")
+                .description("Progress notes recorded")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+}
@@ -1,26 +1,119 @@
 package com.peradeniya.renal.service;
 
+import com.peradeniya.renal.dto.CursorPage;
+import com.peradeniya.renal.dto.ProgressNoteBatchItem;
+import com.peradeniya.renal.dto.ProgressNoteBatchResult;
 import com.peradeniya.renal.dto.ProgressNoteRequest;
+import com.peradeniya.renal.dto.VitalsResponse;
+import com.peradeniya.renal.dto.WardEvent;
 import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.repository.AdmissionRepository;
 import com.peradeniya.renal.repository.ProgressNoteRepository;
+import com.peradeniya.renal.service.cache.ResponseVersions;
+import com.peradeniya.renal.service.fluid.FluidBalanceService;
+import com.peradeniya.renal.service.routing.ReadYourWrites;
+import com.peradeniya.renal.service.vitals.VitalsAggregation;
+import com.peradeniya.renal.service.vitals.VitalsStore;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProgressNoteService {
 
     private final ProgressNoteRepository progressNoteRepository;
+    private final AdmissionRepository admissionRepository;
+    private final VitalsStore vitalsStore;
+    private final ResponseVersions responseVersions;
+    private final ReadYourWrites readYourWrites;
+    private final FluidBalanceService fluidBalanceService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ProgressNoteMetrics progressNoteMetrics;
 
+    // The note and the fluid balance ledger are written in one transaction
+    @Transactional
     public ProgressNote addNote(Admission admission, ProgressNoteRequest req) {
-        System.out.println("Saving progress note for admission: " + admission.getId());
-        System.out.println("Progress note data: " + req);
+        ProgressNote savedNote = progressNoteRepository.save(toNote(admission, req));
+        fluidBalanceService.record(List.of(savedNote));
+        log.debug("Progress note {} saved for admission {}", savedNote.getId(), admission.getId());
+        vitalsStore.append(List.of(savedNote));
+        responseVersions.admissionChanged(admission.getId());
+        eventPublisher.publishEvent(WardEvent.noteAdded(savedNote));
+        progressNoteMetrics.countNotes(false, 1);
         
+        return savedNote;
+    }
+
+    // Validates ownership for every note with a single admission query, then writes all accepted
+    // notes in one transaction so Hibernate can send them as JDBC batches.
+    @Transactional
+    public List<ProgressNoteBatchResult> addNotes(List<ProgressNoteBatchItem> items) {
+        List<Long> admissionIds = items.stream()
+                .map(ProgressNoteBatchItem::getAdmissionId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        Map<Long, Admission> admissions = admissionRepository.findAllWithPatientByIdIn(admissionIds).stream()
+                .collect(Collectors.toMap(Admission::getId, Function.identity()));
+
+        ProgressNoteBatchResult[] results = new ProgressNoteBatchResult[items.size()];
+        List<ProgressNote> notes = new ArrayList<>();
+        List<Integer> noteIndexes = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            ProgressNoteBatchItem item = items.get(i);
+            Admission admission = item.getAdmissionId() != null ? admissions.get(item.getAdmissionId()) : null;
+            String cleanPhn = item.getPhn() != null ? item.getPhn().replaceAll("[^0-9]", "") : "";
+
+            if (admission == null) {
+                results[i] = ProgressNoteBatchResult.rejected(i, item.getAdmissionId(), "Admission not found");
+            } else if (!admission.getPatient().getPhn().equals(cleanPhn)) {
+                results[i] = ProgressNoteBatchResult.rejected(i, item.getAdmissionId(), "Admission does not belong to patient");
+            } else {
+                notes.add(toNote(admission, item));
+                noteIndexes.add(i);
+            }
+        }
+
+        List<ProgressNote> saved = progressNoteRepository.saveAll(notes);
+        if (!saved.isEmpty()) {
+            fluidBalanceService.record(saved);
+        }
+        vitalsStore.append(saved);
+        saved.stream().map(note -> note.getAdmission().getId()).distinct().forEach(responseVersions::admissionChanged);
+        // No {phn} in the batch URL, so the patients written to are pinned to the primary here
+        saved.stream().map(note -> note.getAdmission().getPatient().getPhn()).distinct().forEach(readYourWrites::written);
+        saved.forEach(note -> eventPublisher.publishEvent(WardEvent.noteAdded(note)));
+        progressNoteMetrics.countNotes(true, saved.size());
+        for (int j = 0; j < saved.size(); j++) {
+            int i = noteIndexes.get(j);
+            results[i] = ProgressNoteBatchResult.created(i, items.get(i).getAdmissionId(), saved.get(j).getId());
+        }
+
+        log.debug("Batch progress notes: {} saved, {} rejected", saved.size(), items.size() - saved.size());
+        return Arrays.asList(results);
+    }
+
+    private ProgressNote toNote(Admission admission, ProgressNoteRequest req) {
         ProgressNote note = new ProgressNote();
         note.setAdmission(admission);
+        note.setCreatedAt(LocalDateTime.now());
         note.setTempC(req.getTempC());
         note.setWeightKg(req.getWeightKg());
         note.setBpHigh(req.getBpHigh());
@@ -30,15 +123,42 @@ public class ProgressNoteService {
         note.setUrineOutputMl(req.getUrineOutputMl());
         note.setPdBalance(req.getPdBalance());
         note.setTotalBalance(req.getTotalBalance());
-        
-        ProgressNote savedNote = progressNoteRepository.save(note);
-        System.out.println("Progress note saved with ID: " + savedNote.getId());
-        
-        return savedNote;
+        return note;
     }
 
     public List<ProgressNote> getNotesForAdmission(Long admissionId) {
-        System.out.println("Fetching progress notes for admission: " + admissionId);
         return progressNoteRepository.findByAdmissionIdOrderByCreatedAtDesc(admissionId);
     }
-}
\ No newline at end of file
+
+    public CursorPage<ProgressNote> getNotesPage(Long admissionId, int limit, String after) {
+        Limit fetch = Limit.of(limit + 1);
+        List<ProgressNote> rows;
+        if (after == null) {
+            rows = progressNoteRepository.findPage(admissionId, fetch);
+        } else {
+            CursorPage.Cursor cursor = CursorPage.decodeCursor(after);
+            rows = cursor.sortKey() == null
+                    ? progressNoteRepository.findPageAfterUndated(admissionId, cursor.id(), fetch)
+                    : progressNoteRepository.findPageAfter(admissionId, LocalDateTime.parse(cursor.sortKey()), cursor.id(), fetch);
+        }
+        return CursorPage.of(rows, limit, n -> CursorPage.encodeCursor(n.getCreatedAt(), n.getId()));
+    }
+
+    // Downsampled vitals for [from, to); a missing bound means "from the first reading" / "up to now"
+    public VitalsResponse getVitals(Long admissionId, LocalDateTime from, LocalDateTime to,
+                                    String step, String agg) {
+        Duration stepDuration = DurationStyle.detectAndParse(step);
+        if (stepDuration.toSeconds() < 1) {
+            throw new RuntimeException("step must be at least 1s");
+        }
+        VitalsAggregation aggregation = VitalsAggregation.parse(agg);
+        LocalDateTime end = to != null ? to : LocalDateTime.now().plusSeconds(1);
+        LocalDateTime start = from != null ? from : LocalDateTime.of(1970, 1, 1, 0, 0);
+        if (!start.isBefore(end)) {
+            throw new RuntimeException("from must be before to");
+        }
+
+        return new VitalsResponse(admissionId, from, to, step, aggregation.name().toLowerCase(),
+                vitalsStore.downsample(admissionId, start, end, stepDuration, aggregation));
+    }
+}
@@ -0,0 +1,20 @@
+package com.peradeniya.renal.service;
+
+import java.util.concurrent.ThreadFactory;
+
+// Threads for the executors components own (PDF rendering, SSE dispatch), following spring.threads.virtual.enabled
+public final class WorkerThreads {
+
+    public static final String VIRTUAL_THREADS_PROPERTY = "${spring.threads.virtual.enabled:false}";
+
+    private WorkerThreads() {
+    }
+
+    // Names threads prefix1, prefix2, ...; platform threads are daemons so they never hold up shutdown
+    public static ThreadFactory factory(String prefix, boolean virtual) {
+        if (virtual) {
+            return Thread.ofVirtual().name(prefix, 1).factory();
+        }
+        return Thread.ofPlatform().name(prefix, 1).daemon(true).factory();
+    }
+}
@@ -0,0 +1,165 @@
+package com.peradeniya.renal.service.bht;
+
+import com.peradeniya.renal.config.IdAllocationDataSource;
+import com.peradeniya.renal.model.BhtCounter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BHT numbers, one sequence per ward per year. Like PooledIdGenerator, each node
+ * reserves renal.bht.block-size numbers at a time by moving the ward/year row of bht_counter up with a
+ * compare-and-set, on the id-allocation pool, and hands them out from memory. Numbers left in a block
+ * when the node stops are skipped, never reused, so a restart leaves a gap rather than a duplicate.
+ *
+ * renal.bht.format must contain {ward}, {year} and {seq} (zero-padded to renal.bht.sequence-digits):
+ * sequences are per ward and year, so a format without either would repeat numbers. {ward} is the
+ * ward number, else the ward name, reduced to [A-Z0-9] (renal.bht.default-ward when that leaves
+ * nothing), and the sequence is kept per reduced ward, so wards that print alike share one.
+ */
+@Slf4j
+@Component
+public class BhtSequence {
+
+    private static final String SELECT_SQL =
+            "select last_value from " + BhtCounter.TABLE_NAME + " where counter_key = ?";
+    private static final String INSERT_SQL =
+            "insert into " + BhtCounter.TABLE_NAME + " (counter_key, last_value) values (?, 0)";
+    private static final String UPDATE_SQL =
+            "update " + BhtCounter.TABLE_NAME + " set last_value = ? where last_value = ? and counter_key = ?";
+
+    private final DataSource dataSource;
+    private final int blockSize;
+    private final String format;
+    private final int sequenceDigits;
+    private final String defaultWard;
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    public BhtSequence(IdAllocationDataSource idAllocationDataSource,
+                       @Value("${renal.bht.block-size:20}") int blockSize,
+                       @Value("${renal.bht.format:BHT-{ward}-{year}-{seq}}") String format,
+                       @Value("${renal.bht.sequence-digits:5}") int sequenceDigits,
+                       @Value("${renal.bht.default-ward:gen}") String defaultWard) {
+        this.dataSource = idAllocationDataSource.dataSource();
+        this.blockSize = Math.max(1, blockSize);
+        for (String placeholder : List.of("{ward}", "{year}", "{seq}")) {
+            if (!format.contains(placeholder)) {
+                throw new IllegalArgumentException("renal.bht.format must contain " + placeholder + ": " + format);
+            }
+        }
+        this.format = format;
+        this.sequenceDigits = Math.max(1, sequenceDigits);
+        this.defaultWard = sanitize(defaultWard);
+        if (this.defaultWard.isEmpty()) {
+            throw new IllegalArgumentException("renal.bht.default-ward must contain letters or digits: " + defaultWard);
+        }
+    }
+
+    public String next(String ward, String wardNumber, int year) {
+        String wardCode = sanitize(wardNumber != null && !wardNumber.isBlank() ? wardNumber : ward);
+        if (wardCode.isEmpty()) {
+            wardCode = defaultWard;
+        }
+        long seq = nextValue(wardCode.toLowerCase(Locale.ROOT) + "/" + year);
+        return format
+                .replace("{ward}", wardCode)
+                .replace("{year}", String.valueOf(year))
+                .replace("{seq}", String.format("%0" + sequenceDigits + "d", seq));
+    }
+
+    private long nextValue(String counterKey) {
+        Counter counter = counters.computeIfAbsent(counterKey, k -> new Counter());
+        long value = counter.block.take();
+        if (value > 0) {
+            return value;
+        }
+        // Block used up: one thread refills it, the others wait and take from the new one
+        counter.lock.lock();
+        try {
+            value = counter.block.take();
+            if (value > 0) {
+                return value;
+            }
+            long first = reserveBlock(counterKey);
+            counter.block = new Block(first + 1, first + blockSize - 1);
+            return first;
+        } finally {
+            counter.lock.unlock();
+        }
+    }
+
+    private static String sanitize(String ward) {
+        return ward == null ? "" : ward.toUpperCase(Locale.ROOT).replaceAll("[^A-Z0-9]", "");
+    }
+
+    // Moves the counter's last reserved number up by one block and returns the first number in it
+    private long reserveBlock(String counterKey) {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            while (true) {
+                long lastUsed;
+                try (PreparedStatement select = connection.prepareStatement(SELECT_SQL)) {
+                    select.setString(1, counterKey);
+                    try (ResultSet rs = select.executeQuery()) {
+                        lastUsed = rs.next() ? rs.getLong(1) : -1;
+                    }
+                }
+                if (lastUsed < 0) {
+                    try (PreparedStatement insert = connection.prepareStatement(INSERT_SQL)) {
+                        insert.setString(1, counterKey);
+                        insert.executeUpdate();
+                    } catch (SQLIntegrityConstraintViolationException e) {
+                        // inserted concurrently
+                    }
+                    continue;
+                }
+                try (PreparedStatement update = connection.prepareStatement(UPDATE_SQL)) {
+                    update.setLong(1, lastUsed + blockSize);
+                    update.setLong(2, lastUsed);
+                    update.setString(3, counterKey);
+                    if (update.executeUpdate() == 1) {
+                        log.debug("Reserved BHT numbers {}..{} for {}", lastUsed + 1, lastUsed + blockSize, counterKey);
+                        return lastUsed + 1;
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException("Could not reserve BHT numbers for " + counterKey, e);
+        }
+    }
+
+    private static final class Counter {
+        private final ReentrantLock lock = new ReentrantLock();
+        private volatile Block block = new Block(1, 0);
+    }
+
+    // Numbers next..last are free to hand out; next runs past last once the block is used up
+    private static final class Block {
+        private final AtomicLong next;
+        private final long last;
+
+        private Block(long next, long last) {
+            this.next = new AtomicLong(next);
+            this.last = last;
+        }
+
+        // The next free number, or 0 when the block is used up
+        private long take() {
+            long value = next.getAndIncrement();
+            return value <= last ? value : 0;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.peradeniya.renal.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.peradeniya.renal.dto.PatientResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Bounded in-process cache of built {@link PatientResponse}s keyed by cleaned PHN.
+ * Every write path that can change what GET /patients?phn= returns must call {@link #evict(String)}.
+ */
+@Component
+public class PatientResponseCache {
+
+    private final Cache<String, PatientResponse> cache;
+
+    public PatientResponseCache(
+            @Value("${renal.cache.patient.maximum-size:2000}") long maximumSize,
+            @Value("${renal.cache.patient.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public PatientResponse get(String cleanPhn, Function<String, PatientResponse> loader) {
+        return cache.get(cleanPhn, loader);
+    }
+
+    public void evict(String phn) {
+        if (phn == null) {
+            return;
+        }
+        cache.invalidate(phn.replaceAll("[^0-9]", ""));
+    }
+
+    public void evictAll() {
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> stats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("hitRate", stats.hitRate());
+        result.put("evictions", stats.evictionCount());
+        result.put("averageLoadMillis", stats.averageLoadPenalty() / 1_000_000.0);
+        return result;
+    }
+}
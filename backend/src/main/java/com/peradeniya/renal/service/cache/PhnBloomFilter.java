@@ -0,0 +1,133 @@
+package com.peradeniya.renal.service.cache;
+
+import com.peradeniya.renal.repository.PatientRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter over registered PHNs. A negative answer means the PHN is definitely not registered,
+ * so lookups for mistyped/unknown PHNs can be rejected without a database round trip.
+ * Until the startup load completes every PHN is reported as possibly present.
+ *
+ * Off unless renal.phn-filter.enabled is set, and single-node only: it is loaded once at startup and
+ * afterwards only learns the PHNs registered on this node, so with several nodes a patient registered
+ * on another one would be a definite miss (404) here until restart.
+ */
+@Slf4j
+@Component
+public class PhnBloomFilter {
+
+    private final PatientRepository patientRepository;
+    private final boolean enabled;
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final AtomicLong insertions = new AtomicLong();
+    private volatile boolean loaded;
+
+    public PhnBloomFilter(
+            PatientRepository patientRepository,
+            @Value("${renal.phn-filter.enabled:false}") boolean enabled,
+            @Value("${renal.phn-filter.expected-insertions:500000}") long expectedInsertions,
+            @Value("${renal.phn-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.patientRepository = patientRepository;
+        this.enabled = enabled;
+        long n = enabled ? Math.max(1, expectedInsertions) : 1;
+        long m = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        int words = (int) Math.max(1, (m + 63) / 64);
+        this.bits = new AtomicLongArray(words);
+        this.bitCount = (long) words * 64;
+        this.hashCount = Math.max(1, (int) Math.round((double) bitCount / n * Math.log(2)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        patientRepository.findAllPhns().forEach(this::put);
+        loaded = true;
+        log.info("PHN bloom filter loaded: {} PHNs in {} ms", insertions.get(), System.currentTimeMillis() - start);
+    }
+
+    public void put(String phn) {
+        if (!enabled || phn == null) {
+            return;
+        }
+        long hash = hash(clean(phn));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            setBit(bit);
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String phn) {
+        if (!loaded || phn == null) {
+            return true;
+        }
+        long hash = hash(clean(phn));
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashCount; i++) {
+            long bit = Math.floorMod(h1 + (long) i * h2, bitCount);
+            if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("loaded", loaded);
+        result.put("insertions", insertions.get());
+        result.put("bits", bitCount);
+        result.put("hashFunctions", hashCount);
+        return result;
+    }
+
+    private void setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current;
+        do {
+            current = bits.get(index);
+            if ((current & mask) != 0) {
+                return;
+            }
+        } while (!bits.compareAndSet(index, current, current | mask));
+    }
+
+    private static String clean(String phn) {
+        return phn.replaceAll("[^0-9]", "");
+    }
+
+    // 64-bit FNV-1a followed by the MurmurHash3 finalizer to spread the bits
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
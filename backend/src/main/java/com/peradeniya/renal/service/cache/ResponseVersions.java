@@ -0,0 +1,134 @@
+package com.peradeniya.renal.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.peradeniya.renal.service.TransactionHooks;
+import com.peradeniya.renal.service.routing.ReadYourWrites;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Version stamps behind the ETags of GET /patients?phn=, .../admissions (per patient) and
+ * .../progress-notes (per admission), so a conditional GET is answered with 304 from memory before
+ * the body is loaded (progress notes first check that the admission belongs to the patient). Every write
+ * path that can change those responses must call {@link #patientChanged(String)} or
+ * {@link #admissionChanged(Long)}.
+ *
+ * Checking never creates a stamp: the first read of a key only gets its ETag once the controller has
+ * found the row and calls {@link #found(ServletWebRequest)}, so lookups of unknown PHNs or admissions
+ * leave nothing behind.
+ *
+ * A stamp is taken from one node-wide sequence whenever it is created or bumped, and ETags carry a
+ * random per-start epoch, so an evicted stamp or a restart never brings back an old ETag. Stamps are
+ * per node: with several nodes behind a load balancer, use sticky sessions or renal.etag.enabled=false.
+ *
+ * A stamp is bumped when the primary commits, so with a read replica the body sent under it is read from
+ * the primary too; from a lagging replica it could be older than the stamp and then be revalidated (304)
+ * until the next write.
+ */
+@Component
+public class ResponseVersions {
+
+    private static final String PENDING = ResponseVersions.class.getName() + ".pending";
+
+    private final ReadYourWrites readYourWrites;
+    private final boolean enabled;
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() & Long.MAX_VALUE, 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Long> versions;
+
+    public ResponseVersions(
+            ReadYourWrites readYourWrites,
+            @Value("${renal.etag.enabled:true}") boolean enabled,
+            @Value("${renal.etag.maximum-size:100000}") long maximumSize) {
+        this.readYourWrites = readYourWrites;
+        this.enabled = enabled;
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .build();
+    }
+
+    // True when the request's If-None-Match is current (the 304 is already set); otherwise adds the ETag
+    public boolean patientNotModified(ServletWebRequest request, String phn) {
+        return notModified(request, "p:" + phn.replaceAll("[^0-9]", ""));
+    }
+
+    public boolean admissionNotModified(ServletWebRequest request, Long admissionId) {
+        return notModified(request, "a:" + admissionId);
+    }
+
+    public void patientChanged(String phn) {
+        if (phn != null) {
+            bump("p:" + phn.replaceAll("[^0-9]", ""));
+        }
+    }
+
+    public void admissionChanged(Long admissionId) {
+        if (admissionId != null) {
+            bump("a:" + admissionId);
+        }
+    }
+
+    /**
+     * Called once the request has found the row it checked, before the body is returned: gives a key read
+     * for the first time its stamp and ETag. Skipped when a write bumped the key while the row was loading,
+     * since the body may predate that write.
+     */
+    public void found(ServletWebRequest request) {
+        Pending pending = (Pending) request.getAttribute(PENDING, RequestAttributes.SCOPE_REQUEST);
+        if (pending == null) {
+            return;
+        }
+        request.removeAttribute(PENDING, RequestAttributes.SCOPE_REQUEST);
+        long minted = sequence.incrementAndGet();
+        Long version = versions.asMap().putIfAbsent(pending.key(), minted);
+        if (version == null) {
+            version = minted;
+        } else if (version > pending.seen()) {
+            return;
+        }
+        if (request.getResponse() != null) {
+            request.getResponse().setHeader(HttpHeaders.ETAG, etag(version));
+        }
+    }
+
+    private boolean notModified(ServletWebRequest request, String key) {
+        if (!enabled) {
+            return false;
+        }
+        if (request.getResponse() != null) {
+            // Cached by the browser, but revalidated on every use
+            request.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        }
+        Long version = versions.getIfPresent(key);
+        if (version == null) {
+            request.setAttribute(PENDING, new Pending(key, sequence.get()), RequestAttributes.SCOPE_REQUEST);
+        } else if (request.checkNotModified(etag(version))) {
+            return true;
+        }
+        readYourWrites.pinRequestToPrimary();
+        return false;
+    }
+
+    // Weak: the stamp names a version of the content, and gzipped and plain bodies of it differ byte for
+    // byte (Tomcat also skips compressing responses that carry a strong ETag)
+    private String etag(long version) {
+        return "W/\"" + epoch + "-" + version + "\"";
+    }
+
+    private record Pending(String key, long seen) {
+    }
+
+    // After commit: a read that took the old stamp may carry the new data, never the other way round
+    private void bump(String key) {
+        if (enabled) {
+            TransactionHooks.afterCommit(() -> versions.put(key, sequence.incrementAndGet()));
+        }
+    }
+}
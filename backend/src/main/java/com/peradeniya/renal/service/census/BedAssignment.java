@@ -0,0 +1,5 @@
+package com.peradeniya.renal.service.census;
+
+// Where an active admission is, as loaded for the census
+public record BedAssignment(Long admissionId, String ward, String wardNumber, String bedId) {
+}
@@ -0,0 +1,291 @@
+package com.peradeniya.renal.service.census;
+
+import com.peradeniya.renal.dto.WardCensusResponse;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.repository.AdmissionRepository;
+import com.peradeniya.renal.service.TransactionHooks;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory bed occupancy of every ward, built from active admissions at startup and kept current by
+ * admission and discharge. Each ward holds a bitmap over its numbered beds (bed "12" is bit 11) plus a
+ * bed -> admission map, so free-bed counts and the first free bed never touch the admissions table.
+ * Beds are told apart by their whole id, case- and space-insensitively; only purely numeric ids are
+ * numbered beds, so "A1" and "B1" are two separate beds outside the bitmap.
+ *
+ * Wards are keyed by wardNumber when the admission has one, else by ward name, case-insensitively.
+ *
+ * Admissions and discharges that commit before the startup load has been applied are buffered and
+ * replayed on top of it, so one that lands between the load query and the census being filled is not lost.
+ */
+@Slf4j
+@Component
+public class WardCensus {
+
+    private static final Pattern BED_NUMBER = Pattern.compile("\\d{1,6}");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final AdmissionRepository admissionRepository;
+    private final MeterRegistry meterRegistry;
+    private final int defaultCapacity;
+    private final Map<String, Integer> capacities = new HashMap<>();
+
+    private final Map<String, WardBeds> wards = new ConcurrentHashMap<>();
+    private final Map<Long, String> admissionWards = new ConcurrentHashMap<>();
+
+    // Changes committed before load() finished, in commit order; null once they have been replayed
+    private List<Runnable> pending = new ArrayList<>();
+
+    public WardCensus(
+            AdmissionRepository admissionRepository,
+            MeterRegistry meterRegistry,
+            @Value("${renal.census.default-capacity:30}") int defaultCapacity,
+            @Value("${renal.census.ward-capacity:}") String wardCapacity) {
+        this.admissionRepository = admissionRepository;
+        this.meterRegistry = meterRegistry;
+        this.defaultCapacity = defaultCapacity;
+        // "7:40,renal:24"
+        for (String entry : wardCapacity.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length == 2 && !parts[0].isBlank()) {
+                capacities.put(wardKey(parts[0]), Integer.parseInt(parts[1].trim()));
+            }
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        try {
+            List<BedAssignment> assignments = admissionRepository.findActiveBedAssignments();
+            assignments.forEach(this::occupy);
+            log.info("Ward census loaded: {} active admissions in {} wards in {} ms", assignments.size(), wards.size(), System.currentTimeMillis() - start);
+        } finally {
+            // Occupy and release are idempotent, so replaying changes the load already saw is harmless
+            synchronized (this) {
+                log.debug("Ward census replaying {} changes committed during the load", pending.size());
+                pending.forEach(Runnable::run);
+                pending = null;
+            }
+        }
+    }
+
+    public void admit(Admission admission) {
+        BedAssignment assignment = new BedAssignment(admission.getId(), admission.getWard(),
+                admission.getWardNumber(), admission.getBedId());
+        TransactionHooks.afterCommit(() -> apply(() -> occupy(assignment)));
+    }
+
+    public void discharge(Long admissionId) {
+        TransactionHooks.afterCommit(() -> apply(() -> release(admissionId)));
+    }
+
+    private void apply(Runnable change) {
+        synchronized (this) {
+            if (pending != null) {
+                pending.add(change);
+                return;
+            }
+        }
+        change.run();
+    }
+
+    public WardCensusResponse census(String ward) {
+        String key = wardKey(ward);
+        WardBeds beds = wards.get(key);
+        if (beds == null) {
+            beds = new WardBeds(capacityOf(key));
+        }
+        return beds.snapshot(ward.trim());
+    }
+
+    // Ward key of an admission, null when it has neither a ward number nor a ward
+    public static String wardKeyOf(String ward, String wardNumber) {
+        if (wardNumber != null && !wardNumber.isBlank()) {
+            return wardKey(wardNumber);
+        }
+        if (ward != null && !ward.isBlank()) {
+            return wardKey(ward);
+        }
+        return null;
+    }
+
+    private void occupy(BedAssignment assignment) {
+        String key = wardKeyOf(assignment.ward(), assignment.wardNumber());
+        if (key == null || assignment.admissionId() == null) {
+            return;
+        }
+        String previous = admissionWards.put(assignment.admissionId(), key);
+        if (previous != null && !previous.equals(key)) {
+            WardBeds old = wards.get(previous);
+            if (old != null) {
+                old.release(assignment.admissionId());
+            }
+        }
+        WardBeds beds = wards.get(key);
+        if (beds == null) {
+            beds = wards.computeIfAbsent(key, k -> new WardBeds(capacityOf(k)));
+            registerGauges(key, beds);
+        }
+        beds.occupy(assignment.admissionId(), assignment.bedId());
+    }
+
+    // Registering twice is a no-op, so a lost computeIfAbsent race is harmless
+    private void registerGauges(String key, WardBeds beds) {
+        Gauge.builder("renal.ward.admissions.active", beds, WardBeds::activeAdmissions)
+                .description("Active admissions in the ward")
+                .tag("ward", key)
+                .register(meterRegistry);
+        Gauge.builder("renal.ward.beds.occupied", beds, WardBeds::occupiedBeds)
+                .description("Numbered beds occupied in the ward")
+                .tag("ward", key)
+                .register(meterRegistry);
+        Gauge.builder("renal.ward.beds.capacity", beds, WardBeds::capacity)
+                .description("Beds in the ward")
+                .tag("ward", key)
+                .register(meterRegistry);
+    }
+
+    private void release(Long admissionId) {
+        String key = admissionWards.remove(admissionId);
+        if (key != null) {
+            WardBeds beds = wards.get(key);
+            if (beds != null) {
+                beds.release(admissionId);
+            }
+        }
+    }
+
+    private int capacityOf(String key) {
+        return capacities.getOrDefault(key, defaultCapacity);
+    }
+
+    private static String wardKey(String ward) {
+        return ward.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // Trimmed, upper-cased bed id without whitespace ("icu 2" -> "ICU2"); numeric ids without leading zeros
+    static String bedKey(String bedId) {
+        Integer number = bedNumber(bedId);
+        return number != null ? number.toString() : WHITESPACE.matcher(bedId).replaceAll("").toUpperCase(Locale.ROOT);
+    }
+
+    // Number of a purely numeric bed id ("07" -> 7), else null
+    static Integer bedNumber(String bedId) {
+        if (bedId == null) {
+            return null;
+        }
+        String trimmed = bedId.trim();
+        if (!BED_NUMBER.matcher(trimmed).matches()) {
+            return null;
+        }
+        int number = Integer.parseInt(trimmed);
+        return number >= 1 ? number : null;
+    }
+
+    private static final class WardBeds {
+        private final BitSet occupied = new BitSet();
+        private int capacity;
+        private int occupiedCount;
+        // Bed key (see bedKey) -> current occupant
+        private final Map<String, Occupant> beds = new HashMap<>();
+        private final Map<Long, String> admissionBeds = new HashMap<>();
+        private final Set<Long> unassigned = new LinkedHashSet<>();
+
+        private WardBeds(int capacity) {
+            this.capacity = capacity;
+        }
+
+        synchronized void occupy(Long admissionId, String bedId) {
+            release(admissionId);
+            if (bedId == null || bedId.isBlank()) {
+                unassigned.add(admissionId);
+                return;
+            }
+            Integer number = bedNumber(bedId);
+            String bedKey = bedKey(bedId);
+            Occupant previous = beds.put(bedKey, new Occupant(bedId.trim(), number, admissionId));
+            if (previous != null) {
+                // Two active admissions on one bed; the newer one wins the bed
+                admissionBeds.remove(previous.admissionId());
+                unassigned.add(previous.admissionId());
+                log.atWarn()
+                        .addKeyValue("admissionId", admissionId)
+                        .addKeyValue("previousAdmissionId", previous.admissionId())
+                        .log("Bed {} was still held by another admission, reassigned", bedId);
+            }
+            admissionBeds.put(admissionId, bedKey);
+            if (number != null && !occupied.get(number - 1)) {
+                occupied.set(number - 1);
+                occupiedCount++;
+                capacity = Math.max(capacity, number);
+            }
+        }
+
+        synchronized void release(Long admissionId) {
+            if (unassigned.remove(admissionId)) {
+                return;
+            }
+            String bedKey = admissionBeds.remove(admissionId);
+            if (bedKey == null) {
+                return;
+            }
+            Occupant occupant = beds.remove(bedKey);
+            if (occupant != null && occupant.bedNumber() != null) {
+                occupied.clear(occupant.bedNumber() - 1);
+                occupiedCount--;
+            }
+        }
+
+        synchronized int activeAdmissions() {
+            return admissionBeds.size() + unassigned.size();
+        }
+
+        synchronized int occupiedBeds() {
+            return occupiedCount;
+        }
+
+        synchronized int capacity() {
+            return capacity;
+        }
+
+        synchronized WardCensusResponse snapshot(String ward) {
+            int free = capacity - occupiedCount;
+            int firstFree = occupied.nextClearBit(0);
+            List<Integer> freeBeds = new ArrayList<>(free);
+            for (int i = firstFree; i < capacity; i = occupied.nextClearBit(i + 1)) {
+                freeBeds.add(i + 1);
+            }
+            List<WardCensusResponse.BedOccupancy> occupancy = new ArrayList<>(beds.size());
+            for (Occupant o : beds.values()) {
+                occupancy.add(new WardCensusResponse.BedOccupancy(o.bedId(), o.bedNumber(), o.admissionId()));
+            }
+            occupancy.sort(Comparator.comparing(WardCensusResponse.BedOccupancy::getBedNumber,
+                            Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparing(WardCensusResponse.BedOccupancy::getBedId));
+            return new WardCensusResponse(ward, capacity, occupiedCount, free,
+                    firstFree < capacity ? firstFree + 1 : null, freeBeds, occupancy, new ArrayList<>(unassigned));
+        }
+    }
+
+    private record Occupant(String bedId, Integer bedNumber, Long admissionId) {
+    }
+}
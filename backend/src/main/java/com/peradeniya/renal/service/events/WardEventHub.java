@@ -0,0 +1,187 @@
+package com.peradeniya.renal.service.events;
+
+import com.peradeniya.renal.dto.WardEvent;
+import com.peradeniya.renal.service.WorkerThreads;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Fans {@link WardEvent}s out to Server-Sent Events subscribers of the event's ward.
+ *
+ * Events are taken after the publishing transaction commits and only ever offered to per-subscriber
+ * bounded queues, so writers never wait on dashboards. A small dispatcher pool does the actual socket
+ * writes. When a slow subscriber's queue overflows the oldest events are dropped and the subscriber gets a
+ * "resync" event telling it to refetch instead of trusting the stream.
+ */
+@Component
+public class WardEventHub {
+
+    private final int bufferSize;
+    private final Duration timeout;
+    private final ExecutorService dispatcher;
+
+    private final Map<String, Set<Subscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicLong sequence = new AtomicLong();
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public WardEventHub(
+            @Value("${renal.events.buffer-size:256}") int bufferSize,
+            @Value("${renal.events.timeout:30m}") Duration timeout,
+            @Value("${renal.events.dispatcher-threads:4}") int dispatcherThreads,
+            @Value(WorkerThreads.VIRTUAL_THREADS_PROPERTY) boolean virtualThreads) {
+        this.bufferSize = bufferSize;
+        this.timeout = timeout;
+        this.dispatcher = Executors.newFixedThreadPool(dispatcherThreads,
+                WorkerThreads.factory("ward-events-", virtualThreads));
+    }
+
+    public SseEmitter subscribe(String ward) {
+        String key = ward.trim().toLowerCase(Locale.ROOT);
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(key, emitter);
+        subscribers.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(subscriber);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        // Flushes the response headers so the client sees the stream open right away
+        subscriber.offerComment("connected");
+        return emitter;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onWardEvent(WardEvent event) {
+        if (event.getWard() == null) {
+            return;
+        }
+        published.incrementAndGet();
+        Set<Subscriber> targets = subscribers.get(event.getWard());
+        if (targets == null) {
+            return;
+        }
+        for (Subscriber subscriber : targets) {
+            subscriber.offer(event);
+        }
+    }
+
+    // Keeps idle connections open through proxies and finds subscribers that went away
+    @Scheduled(fixedRateString = "${renal.events.heartbeat-ms:20000}")
+    public void heartbeat() {
+        for (Set<Subscriber> targets : subscribers.values()) {
+            for (Subscriber subscriber : targets) {
+                subscriber.offerComment("heartbeat");
+            }
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        Map<String, Integer> perWard = new LinkedHashMap<>();
+        subscribers.forEach((ward, targets) -> perWard.put(ward, targets.size()));
+        result.put("subscribers", perWard);
+        result.put("published", published.get());
+        result.put("dropped", dropped.get());
+        return result;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.values().forEach(targets -> targets.forEach(s -> s.emitter.complete()));
+        dispatcher.shutdownNow();
+    }
+
+    private final class Subscriber {
+        private final String ward;
+        private final SseEmitter emitter;
+        private final ArrayBlockingQueue<SseEmitter.SseEventBuilder> queue = new ArrayBlockingQueue<>(bufferSize);
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean overflowed = new AtomicBoolean();
+        private volatile boolean closed;
+
+        private Subscriber(String ward, SseEmitter emitter) {
+            this.ward = ward;
+            this.emitter = emitter;
+        }
+
+        void offer(WardEvent event) {
+            enqueue(SseEmitter.event()
+                    .id(Long.toString(sequence.incrementAndGet()))
+                    .name(event.getType().name().toLowerCase(Locale.ROOT))
+                    .data(event, MediaType.APPLICATION_JSON));
+        }
+
+        void offerComment(String comment) {
+            enqueue(SseEmitter.event().comment(comment));
+        }
+
+        private void enqueue(SseEmitter.SseEventBuilder event) {
+            if (closed) {
+                return;
+            }
+            while (!queue.offer(event)) {
+                if (queue.poll() != null) {
+                    overflowed.set(true);
+                    dropped.incrementAndGet();
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (!closed && scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RuntimeException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                if (overflowed.getAndSet(false)) {
+                    emitter.send(SseEmitter.event().name("resync").data("{}", MediaType.APPLICATION_JSON));
+                }
+                SseEmitter.SseEventBuilder event;
+                while (!closed && (event = queue.poll()) != null) {
+                    emitter.send(event);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away or the emitter already completed; the container finishes the request
+                close();
+            } finally {
+                scheduled.set(false);
+                if (!closed && !queue.isEmpty()) {
+                    schedule();
+                }
+            }
+        }
+
+        void close() {
+            closed = true;
+            queue.clear();
+            Set<Subscriber> targets = subscribers.get(ward);
+            if (targets != null) {
+                targets.remove(this);
+            }
+        }
+    }
+}
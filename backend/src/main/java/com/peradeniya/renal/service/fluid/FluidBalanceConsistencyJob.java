@@ -0,0 +1,44 @@
+package com.peradeniya.renal.service.fluid;
+
+import com.peradeniya.renal.dto.FluidBalanceRebuildResult;
+import com.peradeniya.renal.repository.AdmissionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Rebuilds the fluid balance ledger of every active admission from its notes and reports drift.
+ * Scheduled by renal.fluid-balance.check-cron (off by default) and also callable on demand.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FluidBalanceConsistencyJob {
+
+    private final FluidBalanceService fluidBalanceService;
+    private final AdmissionRepository admissionRepository;
+
+    @Scheduled(cron = "${renal.fluid-balance.check-cron:-}")
+    public void scheduledCheck() {
+        checkActiveAdmissions();
+    }
+
+    // Each admission is rebuilt in its own transaction so one failure does not undo the rest
+    public List<FluidBalanceRebuildResult> checkActiveAdmissions() {
+        long start = System.currentTimeMillis();
+        List<FluidBalanceRebuildResult> drifted = new ArrayList<>();
+        List<Long> admissionIds = admissionRepository.findActiveIds();
+        for (Long admissionId : admissionIds) {
+            FluidBalanceRebuildResult result = fluidBalanceService.rebuild(admissionId);
+            if (!result.isConsistent()) {
+                drifted.add(result);
+            }
+        }
+        log.info("Fluid balance check: {} active admissions, {} rebuilt with changes in {} ms", admissionIds.size(), drifted.size(), System.currentTimeMillis() - start);
+        return drifted;
+    }
+}
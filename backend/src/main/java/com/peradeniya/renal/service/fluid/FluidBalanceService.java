@@ -0,0 +1,198 @@
+package com.peradeniya.renal.service.fluid;
+
+import com.peradeniya.renal.dto.FluidBalanceRebuildResult;
+import com.peradeniya.renal.dto.FluidBalanceResponse;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.FluidBalanceBucket;
+import com.peradeniya.renal.model.FluidBalanceLedger;
+import com.peradeniya.renal.model.FluidTotals;
+import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.repository.AdmissionRepository;
+import com.peradeniya.renal.repository.FluidBalanceBucketRepository;
+import com.peradeniya.renal.repository.FluidBalanceLedgerRepository;
+import com.peradeniya.renal.repository.ProgressNoteRepository;
+import com.peradeniya.renal.service.vitals.VitalsReading;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Per-admission fluid balance ledger: admission-to-date totals on one row plus one row per clock hour,
+ * both incremented in the same transaction that saves the progress notes. Reads touch the ledger row and
+ * at most 24 hourly rows, however long the admission has been running.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class FluidBalanceService {
+
+    private final FluidBalanceLedgerRepository ledgerRepository;
+    private final FluidBalanceBucketRepository bucketRepository;
+    private final ProgressNoteRepository progressNoteRepository;
+    private final AdmissionRepository admissionRepository;
+
+    // Hours of the day at which nursing shifts start
+    @Value("${renal.fluid-balance.shift-start-hours:6,14,22}")
+    private int[] shiftStartHours;
+
+    // Empty ledger for a new admission, so the first notes only ever update it (concurrent
+    // first notes would otherwise race to insert it)
+    public void openLedger(Admission admission) {
+        ledgerRepository.save(FluidBalanceLedger.builder()
+                .admission(admission)
+                .build());
+    }
+
+    // Must run inside the transaction that saves the notes
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<ProgressNote> notes) {
+        Map<Long, FluidTotals> perAdmission = new LinkedHashMap<>();
+        Map<Long, Map<LocalDateTime, FluidTotals>> perHour = new HashMap<>();
+        Map<Long, LocalDateTime> latest = new HashMap<>();
+        for (ProgressNote note : notes) {
+            Long admissionId = note.getAdmission().getId();
+            FluidTotals totals = FluidTotals.of(note);
+            perAdmission.computeIfAbsent(admissionId, id -> new FluidTotals()).add(totals);
+            if (note.getCreatedAt() != null) {
+                perHour.computeIfAbsent(admissionId, id -> new TreeMap<>())
+                        .computeIfAbsent(note.getCreatedAt().truncatedTo(ChronoUnit.HOURS), h -> new FluidTotals())
+                        .add(totals);
+                latest.merge(admissionId, note.getCreatedAt(), (a, b) -> a.isAfter(b) ? a : b);
+            }
+        }
+
+        for (Map.Entry<Long, FluidTotals> e : perAdmission.entrySet()) {
+            Long admissionId = e.getKey();
+            FluidTotals delta = e.getValue();
+            int updated = ledgerRepository.increment(admissionId, delta.getInputMl(), delta.getUrineOutputMl(),
+                    delta.getPdBalance(), delta.getTotalBalance(), delta.getNotes(), latest.get(admissionId));
+            if (updated == 0) {
+                // Discharged admission from before the ledger existed (active ones get theirs from
+                // FluidBalanceLedgerMigration at startup): build it from all of its notes, these included
+                rebuild(admissionId);
+                continue;
+            }
+            for (Map.Entry<LocalDateTime, FluidTotals> hour : perHour.getOrDefault(admissionId, Map.of()).entrySet()) {
+                addToBucket(admissionId, hour.getKey(), hour.getValue());
+            }
+        }
+    }
+
+    private void addToBucket(Long admissionId, LocalDateTime hourStart, FluidTotals delta) {
+        int updated = bucketRepository.increment(admissionId, hourStart, delta.getInputMl(), delta.getUrineOutputMl(),
+                delta.getPdBalance(), delta.getTotalBalance(), delta.getNotes());
+        if (updated == 0) {
+            bucketRepository.save(FluidBalanceBucket.builder()
+                    .admission(admissionRepository.getReferenceById(admissionId))
+                    .hourStart(hourStart)
+                    .totals(delta.copy())
+                    .build());
+        }
+    }
+
+    @Transactional
+    public FluidBalanceResponse getBalance(Long admissionId) {
+        FluidBalanceLedger ledger = ledgerRepository.findByAdmissionId(admissionId).orElse(null);
+        if (ledger == null) {
+            rebuild(admissionId);
+            ledger = ledgerRepository.findByAdmissionId(admissionId).orElseThrow();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime windowStart = now.truncatedTo(ChronoUnit.HOURS).minusHours(23);
+        LocalDateTime shiftStart = currentShiftStart(now);
+
+        FluidTotals last24h = new FluidTotals();
+        FluidTotals shift = new FluidTotals();
+        LocalDateTime from = shiftStart.isBefore(windowStart) ? shiftStart : windowStart;
+        for (FluidBalanceBucket bucket : bucketRepository.findSince(admissionId, from)) {
+            if (!bucket.getHourStart().isBefore(windowStart)) {
+                last24h.add(bucket.getTotals());
+            }
+            if (!bucket.getHourStart().isBefore(shiftStart)) {
+                shift.add(bucket.getTotals());
+            }
+        }
+
+        return new FluidBalanceResponse(admissionId, ledger.getTotals(), windowStart, last24h,
+                shiftStart, shift, ledger.getLastNoteAt(), ledger.getRebuiltAt());
+    }
+
+    // Recomputes the ledger and hourly rows from the notes and reports whether the stored totals had drifted
+    @Transactional
+    public FluidBalanceRebuildResult rebuild(Long admissionId) {
+        FluidBalanceLedger ledger = ledgerRepository.findForUpdate(admissionId).orElse(null);
+        FluidTotals before = ledger != null ? ledger.getTotals().copy() : null;
+
+        FluidTotals after = new FluidTotals();
+        Map<LocalDateTime, FluidTotals> hours = new TreeMap<>();
+        LocalDateTime lastNoteAt = null;
+        for (VitalsReading reading : progressNoteRepository.findReadingsByAdmissionId(admissionId)) {
+            FluidTotals totals = FluidTotals.of(reading.inputMl(), reading.urineOutputMl(),
+                    reading.pdBalance(), reading.totalBalance());
+            after.add(totals);
+            if (reading.createdAt() != null) {
+                hours.computeIfAbsent(reading.createdAt().truncatedTo(ChronoUnit.HOURS), h -> new FluidTotals())
+                        .add(totals);
+                if (lastNoteAt == null || reading.createdAt().isAfter(lastNoteAt)) {
+                    lastNoteAt = reading.createdAt();
+                }
+            }
+        }
+
+        if (ledger == null) {
+            ledger = FluidBalanceLedger.builder()
+                    .admission(admissionRepository.getReferenceById(admissionId))
+                    .build();
+        }
+        ledger.setTotals(after);
+        ledger.setLastNoteAt(lastNoteAt);
+        ledger.setRebuiltAt(LocalDateTime.now());
+        ledgerRepository.save(ledger);
+
+        bucketRepository.deleteByAdmission(admissionId);
+        List<FluidBalanceBucket> buckets = new ArrayList<>(hours.size());
+        for (Map.Entry<LocalDateTime, FluidTotals> hour : hours.entrySet()) {
+            buckets.add(FluidBalanceBucket.builder()
+                    .admission(admissionRepository.getReferenceById(admissionId))
+                    .hourStart(hour.getKey())
+                    .totals(hour.getValue())
+                    .build());
+        }
+        bucketRepository.saveAll(buckets);
+
+        boolean consistent = after.equals(before);
+        if (before != null && !consistent) {
+            log.atWarn()
+                    .addKeyValue("admissionId", admissionId)
+                    .log("Fluid balance ledger had drifted: {} -> {}", before, after);
+        }
+        return new FluidBalanceRebuildResult(admissionId, before, after, consistent);
+    }
+
+    LocalDateTime currentShiftStart(LocalDateTime now) {
+        int[] hours = shiftStartHours.clone();
+        Arrays.sort(hours);
+        LocalDateTime today = now.truncatedTo(ChronoUnit.DAYS);
+        for (int i = hours.length - 1; i >= 0; i--) {
+            LocalDateTime start = today.plusHours(hours[i]);
+            if (!start.isAfter(now)) {
+                return start;
+            }
+        }
+        return today.minusDays(1).plusHours(hours[hours.length - 1]);
+    }
+}
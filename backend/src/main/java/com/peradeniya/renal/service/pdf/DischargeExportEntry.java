@@ -0,0 +1,14 @@
+package com.peradeniya.renal.service.pdf;
+
+import java.time.LocalDate;
+
+// One row of a discharge summary export, loaded without the summary text
+public record DischargeExportEntry(Long id, LocalDate dischargeDate, String bhtNumber, String phn, String pdfDigest) {
+
+    String fileName() {
+        String name = (dischargeDate != null ? dischargeDate.toString() : "undated")
+                + "_" + (bhtNumber != null ? bhtNumber : "no-bht")
+                + "_" + id;
+        return name.replaceAll("[^A-Za-z0-9._-]", "_") + ".pdf";
+    }
+}
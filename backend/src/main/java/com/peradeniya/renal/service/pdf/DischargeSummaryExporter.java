@@ -0,0 +1,132 @@
+package com.peradeniya.renal.service.pdf;
+
+import com.peradeniya.renal.repository.DischargeSummaryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes discharge summary PDFs into a ZIP as a stream. Summaries are read in keyset pages, PDFs that are
+ * not in the artifact store yet are rendered on the shared render pool, and at most {@code window} renders
+ * per export are outstanding at a time. Each PDF is copied from disk into the ZIP as soon as it is ready,
+ * so memory use does not depend on the size of the export.
+ */
+@Slf4j
+@Service
+public class DischargeSummaryExporter {
+
+    private static final int PAGE_SIZE = 200;
+
+    private final DischargeSummaryRepository dischargeSummaryRepository;
+    private final PdfRenderQueue pdfRenderQueue;
+    private final PdfArtifactStore pdfArtifactStore;
+    private final int window;
+
+    public DischargeSummaryExporter(
+            DischargeSummaryRepository dischargeSummaryRepository,
+            PdfRenderQueue pdfRenderQueue,
+            PdfArtifactStore pdfArtifactStore,
+            @Value("${renal.pdf.export-window:4}") int window) {
+        this.dischargeSummaryRepository = dischargeSummaryRepository;
+        this.pdfRenderQueue = pdfRenderQueue;
+        this.pdfArtifactStore = pdfArtifactStore;
+        this.window = Math.max(1, window);
+    }
+
+    private record Completed(DischargeExportEntry entry, String digest, Throwable error) {
+    }
+
+    public void export(String ward, LocalDate from, LocalDate to, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        String wardKey = ward != null && !ward.isBlank() ? ward.trim().toLowerCase(Locale.ROOT) : null;
+
+        ZipOutputStream zip = new ZipOutputStream(out);
+        // A small first entry gets bytes to the client before any rendering starts
+        writeText(zip, "export-info.txt", "Discharge summaries export\n"
+                + "ward: " + (wardKey != null ? wardKey : "all") + "\n"
+                + "from: " + (from != null ? from : "-") + "\n"
+                + "to: " + (to != null ? to : "-") + "\n"
+                + "generated: " + LocalDateTime.now() + "\n");
+        zip.flush();
+
+        BlockingQueue<Completed> completed = new LinkedBlockingQueue<>();
+        int inFlight = 0;
+        int written = 0;
+        int failed = 0;
+        long afterId = 0;
+        List<DischargeExportEntry> page;
+        do {
+            page = dischargeSummaryRepository.findExportPage(wardKey, from, to, afterId, Limit.of(PAGE_SIZE));
+            for (DischargeExportEntry entry : page) {
+                afterId = entry.id();
+                while (inFlight >= window) {
+                    failed += write(zip, take(completed));
+                    written++;
+                    inFlight--;
+                }
+                CompletableFuture<String> digest = pdfRenderQueue.digestFor(entry.id(), entry.pdfDigest());
+                digest.whenComplete((d, e) -> completed.add(new Completed(entry, d, e)));
+                inFlight++;
+            }
+        } while (page.size() == PAGE_SIZE);
+
+        while (inFlight > 0) {
+            failed += write(zip, take(completed));
+            written++;
+            inFlight--;
+        }
+        zip.finish();
+        zip.flush();
+
+        log.atInfo()
+                .addKeyValue("ward", wardKey)
+                .addKeyValue("from", from)
+                .addKeyValue("to", to)
+                .log("Discharge summary export: {} summaries, {} failed in {} ms", written, failed, System.currentTimeMillis() - start);
+    }
+
+    // Returns 1 when the summary could not be rendered and an error note was written instead
+    private int write(ZipOutputStream zip, Completed done) throws IOException {
+        if (done.error() != null) {
+            Throwable cause = done.error().getCause() != null ? done.error().getCause() : done.error();
+            writeText(zip, done.entry().fileName() + ".error.txt",
+                    "Discharge summary " + done.entry().id() + " could not be rendered: " + cause.getMessage() + "\n");
+            return 1;
+        }
+        zip.putNextEntry(new ZipEntry(done.entry().fileName()));
+        Files.copy(pdfArtifactStore.path(done.digest()), zip);
+        zip.closeEntry();
+        zip.flush();
+        return 0;
+    }
+
+    private static void writeText(ZipOutputStream zip, String name, String text) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(text.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+
+    private static Completed take(BlockingQueue<Completed> completed) throws IOException {
+        try {
+            return completed.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.peradeniya.renal.service.pdf;
+
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.repository.AdmissionRepository;
+import com.peradeniya.renal.repository.ProgressNoteRepository;
+import com.peradeniya.renal.service.vitals.VitalsReading;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Full-history patient PDF written straight to the response. Progress notes are read through a
+ * streaming query (one short read-only transaction per admission) as scalar rows, so nothing grows
+ * with the number of notes: not the heap, not the persistence context.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PatientHistoryReport {
+
+    private final PdfService pdfService;
+    private final AdmissionRepository admissionRepository;
+    private final ProgressNoteRepository progressNoteRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final PdfMetrics pdfMetrics;
+
+    public void write(Patient patient, OutputStream out) {
+        long start = System.nanoTime();
+        CountingOutputStream counted = new CountingOutputStream(out);
+        List<Admission> admissions = new ArrayList<>(admissionRepository.findByPatientOrderByAdmittedOnDesc(patient));
+        // Oldest admission first
+        Collections.reverse(admissions);
+
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        int[] notes = {0};
+        try {
+            pdfService.writePatientHistoryPdf(patient, admissions, (admissionId, consumer) ->
+                    readOnly.executeWithoutResult(status -> {
+                        try (Stream<VitalsReading> rows = progressNoteRepository.streamReadingsByAdmissionId(admissionId)) {
+                            rows.forEach(row -> {
+                                notes[0]++;
+                                consumer.accept(row);
+                            });
+                        }
+                    }), counted);
+        } catch (RuntimeException e) {
+            pdfMetrics.recordRender(PdfMetrics.PATIENT_HISTORY, System.nanoTime() - start, counted.count, false);
+            throw e;
+        }
+        pdfMetrics.recordRender(PdfMetrics.PATIENT_HISTORY, System.nanoTime() - start, counted.count, true);
+
+        log.atInfo()
+                .addKeyValue("phn", patient.getPhn())
+                .log("Patient history PDF: {} admissions, {} notes in {} ms", admissions.size(), notes[0], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Counts the bytes handed to the response for the size metric
+    private static final class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.peradeniya.renal.service.pdf;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.function.Consumer;
+
+/**
+ * Content-addressed files on local disk: an artifact lives at {@code <root>/<ab>/<sha256>.pdf}.
+ * Writes go to a temp file first and are moved into place, so readers never see a partial file and
+ * identical content is stored once.
+ */
+@Component
+public class PdfArtifactStore {
+
+    private final Path root;
+
+    public PdfArtifactStore(@Value("${renal.pdf.store-dir:data/pdf-artifacts}") String storeDir) {
+        this.root = Paths.get(storeDir).toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(root);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create PDF store " + root, e);
+        }
+    }
+
+    // Returns the hex sha256 the content was stored under
+    public String store(Consumer<OutputStream> writer) throws IOException {
+        MessageDigest sha256;
+        try {
+            sha256 = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+
+        Path temp = Files.createTempFile(root, "render-", ".tmp");
+        try {
+            try (OutputStream out = new DigestOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temp)), sha256)) {
+                writer.accept(out);
+            }
+            String digest = HexFormat.of().formatHex(sha256.digest());
+            Path target = path(digest);
+            Files.createDirectories(target.getParent());
+            if (!Files.exists(target)) {
+                try {
+                    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+            return digest;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public Path path(String digest) {
+        if (digest == null || !digest.matches("[0-9a-f]{64}")) {
+            throw new IllegalArgumentException("Invalid artifact digest: " + digest);
+        }
+        return root.resolve(digest.substring(0, 2)).resolve(digest + ".pdf");
+    }
+
+    public boolean exists(String digest) {
+        return digest != null && Files.isRegularFile(path(digest));
+    }
+}
@@ -0,0 +1,39 @@
+package com.peradeniya.renal.service.pdf;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Render time and size of generated PDFs, tagged by document type
+@Component
+public class PdfMetrics {
+
+    public static final String DISCHARGE_SUMMARY = "discharge-summary";
+    public static final String PATIENT_HISTORY = "patient-history";
+
+    private final MeterRegistry meterRegistry;
+
+    public PdfMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public void recordRender(String type, long nanos, long bytes, boolean success) {
+        Timer.builder("renal.pdf.render")
+                .description("Time to render a PDF")
+                .tag("type", type)
+                .tag("outcome", success ? "success" : "failure")
+                .register(meterRegistry)
+                .record(nanos, TimeUnit.NANOSECONDS);
+        if (success) {
+            DistributionSummary.builder("renal.pdf.size")
+                    .description("Size of rendered PDFs")
+                    .baseUnit("bytes")
+                    .tag("type", type)
+                    .register(meterRegistry)
+                    .record(bytes);
+        }
+    }
+}
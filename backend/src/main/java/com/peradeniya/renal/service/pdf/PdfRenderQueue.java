@@ -0,0 +1,191 @@
+package com.peradeniya.renal.service.pdf;
+
+import com.peradeniya.renal.dto.PdfRenderStatus;
+import com.peradeniya.renal.model.DischargeSummary;
+import com.peradeniya.renal.repository.DischargeSummaryRepository;
+import com.peradeniya.renal.service.WorkerThreads;
+import com.peradeniya.renal.service.routing.ReadYourWrites;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Renders discharge summary PDFs once, on a bounded worker pool, into the {@link PdfArtifactStore}.
+ * A summary is queued right after it is created; downloads then read the stored file. Downloads that
+ * arrive first join the queued render (or render inline when the queue is full) instead of starting another.
+ */
+@Slf4j
+@Component
+public class PdfRenderQueue {
+
+    private final PdfService pdfService;
+    private final PdfArtifactStore artifactStore;
+    private final DischargeSummaryRepository dischargeSummaryRepository;
+    private final PdfMetrics pdfMetrics;
+    private final ReadYourWrites readYourWrites;
+    private final Duration downloadWait;
+    private final ThreadPoolExecutor executor;
+
+    // Renders that are queued, running or failed; finished ones are known by the stored digest
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+
+    public PdfRenderQueue(
+            PdfService pdfService,
+            PdfArtifactStore artifactStore,
+            DischargeSummaryRepository dischargeSummaryRepository,
+            PdfMetrics pdfMetrics,
+            ReadYourWrites readYourWrites,
+            @Value("${renal.pdf.render-threads:2}") int threads,
+            @Value("${renal.pdf.render-queue:200}") int queueSize,
+            @Value("${renal.pdf.download-wait:30s}") Duration downloadWait,
+            @Value(WorkerThreads.VIRTUAL_THREADS_PROPERTY) boolean virtualThreads) {
+        this.pdfService = pdfService;
+        this.artifactStore = artifactStore;
+        this.dischargeSummaryRepository = dischargeSummaryRepository;
+        this.pdfMetrics = pdfMetrics;
+        this.readYourWrites = readYourWrites;
+        this.downloadWait = downloadWait;
+        // Still render-threads at a time on virtual threads: rendering is CPU and memory bound
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                WorkerThreads.factory("pdf-render-", virtualThreads),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // Fire and forget; if the queue is full the first download renders it instead
+    public void submit(Long dischargeSummaryId) {
+        try {
+            start(dischargeSummaryId);
+        } catch (RejectedExecutionException e) {
+            log.atWarn()
+                    .addKeyValue("dischargeSummaryId", dischargeSummaryId)
+                    .log("PDF render queue full, will render on first download");
+        }
+    }
+
+    // Digest of the stored PDF, rendering it first if needed
+    public String awaitDigest(DischargeSummary ds) {
+        try {
+            return digestFor(ds.getId(), ds.getPdfDigest()).get(downloadWait.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new RuntimeException("PDF is still rendering, try again shortly");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("PDF generation failed: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for PDF");
+        }
+    }
+
+    /**
+     * Completes with the digest of the stored PDF: immediately when {@code storedDigest} is already on
+     * disk, otherwise once the queued (or joined) render finishes. Renders inline when the queue is full.
+     */
+    public CompletableFuture<String> digestFor(Long dischargeSummaryId, String storedDigest) {
+        if (storedDigest != null && artifactStore.exists(storedDigest)) {
+            return CompletableFuture.completedFuture(storedDigest);
+        }
+        try {
+            return start(dischargeSummaryId).digest;
+        } catch (RejectedExecutionException e) {
+            Job job = new Job();
+            render(dischargeSummaryId, job);
+            return job.digest;
+        }
+    }
+
+    public PdfRenderStatus status(DischargeSummary ds) {
+        Job job = jobs.get(ds.getId());
+        if (job != null) {
+            return new PdfRenderStatus(ds.getId(), job.state, null, job.error);
+        }
+        if (ds.getPdfDigest() != null && artifactStore.exists(ds.getPdfDigest())) {
+            return new PdfRenderStatus(ds.getId(), PdfRenderStatus.State.READY, ds.getPdfDigest(), null);
+        }
+        return new PdfRenderStatus(ds.getId(), PdfRenderStatus.State.NOT_RENDERED, null, null);
+    }
+
+    private Job start(Long id) {
+        Job fresh = new Job();
+        Job job = jobs.compute(id, (k, existing) ->
+                existing != null && existing.state != PdfRenderStatus.State.FAILED ? existing : fresh);
+        if (job == fresh) {
+            try {
+                executor.execute(() -> render(id, fresh));
+            } catch (RejectedExecutionException e) {
+                jobs.remove(id, fresh);
+                throw e;
+            }
+        }
+        return job;
+    }
+
+    private void render(Long id, Job job) {
+        job.state = PdfRenderStatus.State.RENDERING;
+        try {
+            long start = System.currentTimeMillis();
+            // Queued right after the summary committed, possibly before a replica has it
+            DischargeSummary ds = readYourWrites.onPrimary(() -> dischargeSummaryRepository.findById(id))
+                    .orElseThrow(() -> new RuntimeException("Discharge summary not found: " + id));
+            String digest = ds.getPdfDigest() != null && artifactStore.exists(ds.getPdfDigest())
+                    ? ds.getPdfDigest()
+                    : renderAndStore(ds);
+            if (!digest.equals(ds.getPdfDigest())) {
+                dischargeSummaryRepository.updatePdfDigest(id, digest);
+            }
+            job.state = PdfRenderStatus.State.READY;
+            job.digest.complete(digest);
+            jobs.remove(id, job);
+            log.atInfo()
+                    .addKeyValue("dischargeSummaryId", id)
+                    .addKeyValue("digest", digest)
+                    .log("Discharge summary PDF stored in {} ms", System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            job.error = e.getMessage();
+            job.state = PdfRenderStatus.State.FAILED;
+            job.digest.completeExceptionally(e);
+            log.atError()
+                    .addKeyValue("dischargeSummaryId", id)
+                    .setCause(e)
+                    .log("PDF render failed");
+        }
+    }
+
+    private String renderAndStore(DischargeSummary ds) throws IOException {
+        long start = System.nanoTime();
+        try {
+            String digest = artifactStore.store(out -> pdfService.writeDischargeSummaryPdf(ds, out));
+            pdfMetrics.recordRender(PdfMetrics.DISCHARGE_SUMMARY, System.nanoTime() - start,
+                    Files.size(artifactStore.path(digest)), true);
+            return digest;
+        } catch (IOException | RuntimeException e) {
+            pdfMetrics.recordRender(PdfMetrics.DISCHARGE_SUMMARY, System.nanoTime() - start, 0, false);
+            throw e;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private static final class Job {
+        private final CompletableFuture<String> digest = new CompletableFuture<>();
+        private volatile PdfRenderStatus.State state = PdfRenderStatus.State.QUEUED;
+        private volatile String error;
+    }
+}
@@ -1,38 +1,72 @@
 package com.peradeniya.renal.service.pdf;
 
 import com.itextpdf.text.*;
+import com.itextpdf.text.pdf.PdfPCell;
+import com.itextpdf.text.pdf.PdfPTable;
 import com.itextpdf.text.pdf.PdfWriter;
+import com.peradeniya.renal.model.Admission;
 import com.peradeniya.renal.model.DischargeSummary;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.service.vitals.VitalsReading;
 import org.springframework.stereotype.Service;
 
 import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.function.Consumer;
 
 @Service
 public class PdfService {
 
+    // Fonts are immutable once built, so they are shared across renders
+    private static final Font TITLE_FONT = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
+    private static final Font SECTION_FONT = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
+    private static final Font NORMAL = new Font(Font.FontFamily.HELVETICA, 12);
+    private static final Font SMALL = new Font(Font.FontFamily.HELVETICA, 10);
+    private static final Font TABLE_HEADER = new Font(Font.FontFamily.HELVETICA, 8, Font.BOLD);
+    private static final Font TABLE_CELL = new Font(Font.FontFamily.HELVETICA, 8);
+
+    private static final DateTimeFormatter NOTE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    private static final String[] NOTE_COLUMNS =
+            {"Time", "Temp (C)", "Weight (kg)", "BP", "HR", "Input (ml)", "Urine (ml)", "PD bal.", "Total bal."};
+
+    // Rows are handed to the document in batches so iText can write and drop them as pages fill
+    private static final int NOTE_ROWS_PER_FLUSH = 100;
+
+    // Feeds the progress notes of one admission, oldest first, without holding them all in memory
+    public interface ProgressNoteSource {
+        void forEachNote(Long admissionId, Consumer<VitalsReading> consumer);
+    }
+
     public byte[] generateDischargeSummaryPdf(DischargeSummary ds) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        writeDischargeSummaryPdf(ds, baos);
+        return baos.toByteArray();
+    }
+
+    // Writes the PDF straight to the given stream (left open)
+    public void writeDischargeSummaryPdf(DischargeSummary ds, OutputStream out) {
         try {
             Document document = new Document();
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
 
-            PdfWriter.getInstance(document, baos);
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
             document.open();
 
-            Font titleFont = new Font(Font.FontFamily.HELVETICA, 18, Font.BOLD);
-            Font sectionFont = new Font(Font.FontFamily.HELVETICA, 14, Font.BOLD);
-            Font normal = new Font(Font.FontFamily.HELVETICA, 12);
-            Font small = new Font(Font.FontFamily.HELVETICA, 10);
+            // Summaries saved before the patient link was set still reach the patient through the admission
+            Patient patient = ds.getPatient() != null ? ds.getPatient() : ds.getAdmission().getPatient();
 
             // Header
-            Paragraph header = new Paragraph("DISCHARGE SUMMARY", titleFont);
+            Paragraph header = new Paragraph("DISCHARGE SUMMARY", TITLE_FONT);
             header.setAlignment(Element.ALIGN_CENTER);
             document.add(header);
             
-            Paragraph hospital = new Paragraph("TEACHING HOSPITAL PERADENIYA", sectionFont);
+            Paragraph hospital = new Paragraph("TEACHING HOSPITAL PERADENIYA", SECTION_FONT);
             hospital.setAlignment(Element.ALIGN_CENTER);
             document.add(hospital);
             
-            Paragraph unit = new Paragraph("RENAL CARE UNIT", sectionFont);
+            Paragraph unit = new Paragraph("RENAL CARE UNIT", SECTION_FONT);
             unit.setAlignment(Element.ALIGN_CENTER);
             document.add(unit);
             
@@ -40,40 +74,40 @@ public class PdfService {
             document.add(new Paragraph(" "));
 
             // Patient details section
-            Paragraph patientSection = new Paragraph("1. PATIENT DETAILS", sectionFont);
+            Paragraph patientSection = new Paragraph("1. PATIENT DETAILS", SECTION_FONT);
             patientSection.setSpacingAfter(10f);
             document.add(patientSection);
 
-            document.add(new Paragraph("Name: " + safeString(ds.getPatient().getName()), normal));
-            document.add(new Paragraph("PHN: " + safeString(ds.getPatient().getPhn()), normal));
-            document.add(new Paragraph("BHT Number: " + safeString(ds.getAdmission().getBhtNumber()), normal));
-            document.add(new Paragraph("Age: " + (ds.getPatient().getDob() != null ? calculateAge(ds.getPatient().getDob()) + " years" : "Not specified"), normal));
-            document.add(new Paragraph("Sex: " + safeString(ds.getPatient().getSex()), normal));
-            document.add(new Paragraph("Address: " + safeString(ds.getPatient().getAddress()), normal));
-            document.add(new Paragraph("Admission Date: " + (ds.getAdmission().getAdmittedOn() != null ? ds.getAdmission().getAdmittedOn().toString() : "Not specified"), normal));
-            document.add(new Paragraph("Discharge Date: " + (ds.getDischargeDate() != null ? ds.getDischargeDate().toString() : "Not specified"), normal));
+            document.add(new Paragraph("Name: " + safeString(patient.getName()), NORMAL));
+            document.add(new Paragraph("PHN: " + safeString(patient.getPhn()), NORMAL));
+            document.add(new Paragraph("BHT Number: " + safeString(ds.getAdmission().getBhtNumber()), NORMAL));
+            document.add(new Paragraph("Age: " + (patient.getDob() != null ? calculateAge(patient.getDob()) + " years" : "Not specified"), NORMAL));
+            document.add(new Paragraph("Sex: " + safeString(patient.getSex()), NORMAL));
+            document.add(new Paragraph("Address: " + safeString(patient.getAddress()), NORMAL));
+            document.add(new Paragraph("Admission Date: " + (ds.getAdmission().getAdmittedOn() != null ? ds.getAdmission().getAdmittedOn().toString() : "Not specified"), NORMAL));
+            document.add(new Paragraph("Discharge Date: " + (ds.getDischargeDate() != null ? ds.getDischargeDate().toString() : "Not specified"), NORMAL));
             
             document.add(new Paragraph(" "));
             document.add(new Paragraph(" "));
 
             // Diagnosis section
-            Paragraph diagnosisSection = new Paragraph("2. DIAGNOSIS", sectionFont);
+            Paragraph diagnosisSection = new Paragraph("2. DIAGNOSIS", SECTION_FONT);
             diagnosisSection.setSpacingAfter(10f);
             document.add(diagnosisSection);
             
-            document.add(new Paragraph("Final Diagnosis: " + safeString(ds.getDiagnosis()), normal));
-            document.add(new Paragraph("ICD-10 Code: " + safeString(ds.getIcd10()), normal));
+            document.add(new Paragraph("Final Diagnosis: " + safeString(ds.getDiagnosis()), NORMAL));
+            document.add(new Paragraph("ICD-10 Code: " + safeString(ds.getIcd10()), NORMAL));
             
             document.add(new Paragraph(" "));
             document.add(new Paragraph(" "));
 
             // Progress Summary
             if (ds.getProgressSummary() != null && !ds.getProgressSummary().trim().isEmpty()) {
-                Paragraph progressSection = new Paragraph("3. PROGRESS SUMMARY", sectionFont);
+                Paragraph progressSection = new Paragraph("3. PROGRESS SUMMARY", SECTION_FONT);
                 progressSection.setSpacingAfter(10f);
                 document.add(progressSection);
                 
-                Paragraph progress = new Paragraph(safeString(ds.getProgressSummary()), normal);
+                Paragraph progress = new Paragraph(safeString(ds.getProgressSummary()), NORMAL);
                 progress.setAlignment(Element.ALIGN_JUSTIFIED);
                 document.add(progress);
                 
@@ -83,11 +117,11 @@ public class PdfService {
 
             // Management
             if (ds.getManagement() != null && !ds.getManagement().trim().isEmpty()) {
-                Paragraph managementSection = new Paragraph("4. MANAGEMENT", sectionFont);
+                Paragraph managementSection = new Paragraph("4. MANAGEMENT", SECTION_FONT);
                 managementSection.setSpacingAfter(10f);
                 document.add(managementSection);
                 
-                Paragraph management = new Paragraph(safeString(ds.getManagement()), normal);
+                Paragraph management = new Paragraph(safeString(ds.getManagement()), NORMAL);
                 management.setAlignment(Element.ALIGN_JUSTIFIED);
                 document.add(management);
                 
@@ -97,11 +131,11 @@ public class PdfService {
 
             // Discharge Plan
             if (ds.getDischargePlan() != null && !ds.getDischargePlan().trim().isEmpty()) {
-                Paragraph dischargePlanSection = new Paragraph("5. DISCHARGE PLAN", sectionFont);
+                Paragraph dischargePlanSection = new Paragraph("5. DISCHARGE PLAN", SECTION_FONT);
                 dischargePlanSection.setSpacingAfter(10f);
                 document.add(dischargePlanSection);
                 
-                Paragraph dischargePlan = new Paragraph(safeString(ds.getDischargePlan()), normal);
+                Paragraph dischargePlan = new Paragraph(safeString(ds.getDischargePlan()), NORMAL);
                 dischargePlan.setAlignment(Element.ALIGN_JUSTIFIED);
                 document.add(dischargePlan);
                 
@@ -111,11 +145,11 @@ public class PdfService {
 
             // Drugs
             if (ds.getDrugsFreeHand() != null && !ds.getDrugsFreeHand().trim().isEmpty()) {
-                Paragraph drugsSection = new Paragraph("6. DISCHARGE MEDICATIONS", sectionFont);
+                Paragraph drugsSection = new Paragraph("6. DISCHARGE MEDICATIONS", SECTION_FONT);
                 drugsSection.setSpacingAfter(10f);
                 document.add(drugsSection);
                 
-                Paragraph drugs = new Paragraph(safeString(ds.getDrugsFreeHand()), normal);
+                Paragraph drugs = new Paragraph(safeString(ds.getDrugsFreeHand()), NORMAL);
                 drugs.setAlignment(Element.ALIGN_JUSTIFIED);
                 document.add(drugs);
             }
@@ -124,18 +158,148 @@ public class PdfService {
             document.add(new Paragraph(" "));
             
             // Footer
-            Paragraph footer = new Paragraph("Generated on: " + java.time.LocalDate.now(), small);
+            Paragraph footer = new Paragraph("Generated on: " + java.time.LocalDate.now(), SMALL);
             footer.setAlignment(Element.ALIGN_RIGHT);
             document.add(footer);
 
             document.close();
 
-            return baos.toByteArray();
+        } catch (Exception e) {
+            throw new RuntimeException("PDF generation failed: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Clinical history of a patient: every admission with its progress-note vitals as tables and its
+     * discharge summary. Pages are written to {@code out} as they fill; notes come from {@code notes} one by one.
+     */
+    public void writePatientHistoryPdf(Patient patient, List<Admission> admissions,
+                                       ProgressNoteSource notes, OutputStream out) {
+        try {
+            Document document = new Document(PageSize.A4.rotate());
+            PdfWriter writer = PdfWriter.getInstance(document, out);
+            writer.setCloseStream(false);
+            document.open();
+
+            Paragraph header = new Paragraph("CLINICAL HISTORY", TITLE_FONT);
+            header.setAlignment(Element.ALIGN_CENTER);
+            document.add(header);
+
+            Paragraph hospital = new Paragraph("TEACHING HOSPITAL PERADENIYA - RENAL CARE UNIT", SECTION_FONT);
+            hospital.setAlignment(Element.ALIGN_CENTER);
+            document.add(hospital);
+            document.add(new Paragraph(" "));
+
+            document.add(new Paragraph("Name: " + safeString(patient.getName()), NORMAL));
+            document.add(new Paragraph("PHN: " + safeString(patient.getPhn()), NORMAL));
+            document.add(new Paragraph("Age: " + (patient.getDob() != null ? calculateAge(patient.getDob()) + " years" : "Not specified"), NORMAL));
+            document.add(new Paragraph("Sex: " + safeString(patient.getSex()), NORMAL));
+            document.add(new Paragraph("Address: " + safeString(patient.getAddress()), NORMAL));
+            document.add(new Paragraph("Admissions: " + admissions.size(), NORMAL));
+
+            int index = 1;
+            for (Admission admission : admissions) {
+                document.newPage();
+                Paragraph admissionSection = new Paragraph(index++ + ". ADMISSION " + safeString(admission.getBhtNumber()), SECTION_FONT);
+                admissionSection.setSpacingAfter(10f);
+                document.add(admissionSection);
+
+                document.add(new Paragraph("Admitted: " + (admission.getAdmittedOn() != null ? admission.getAdmittedOn().toString() : "Not specified")
+                        + "    Ward: " + safeString(admission.getWard()) + " " + (admission.getWardNumber() != null ? admission.getWardNumber() : "")
+                        + "    Bed: " + safeString(admission.getBedId())
+                        + "    Status: " + (admission.isActive() ? "Active" : "Discharged"), NORMAL));
+                document.add(new Paragraph("Consultant: " + safeString(admission.getConsultantName())
+                        + "    Primary diagnosis: " + safeString(admission.getPrimaryDiagnosis()), NORMAL));
+                document.add(new Paragraph(" "));
+
+                writeNotesTable(document, admission.getId(), notes);
+
+                DischargeSummary ds = admission.getDischargeSummary();
+                if (ds != null) {
+                    document.add(new Paragraph(" "));
+                    document.add(new Paragraph("Discharge summary", SECTION_FONT));
+                    document.add(new Paragraph("Discharge Date: " + (ds.getDischargeDate() != null ? ds.getDischargeDate().toString() : "Not specified"), NORMAL));
+                    document.add(new Paragraph("Final Diagnosis: " + safeString(ds.getDiagnosis())
+                            + "    ICD-10 Code: " + safeString(ds.getIcd10()), NORMAL));
+                    addSection(document, "Progress summary", ds.getProgressSummary());
+                    addSection(document, "Management", ds.getManagement());
+                    addSection(document, "Discharge plan", ds.getDischargePlan());
+                    addSection(document, "Discharge medications", ds.getDrugsFreeHand());
+                }
+            }
+
+            document.add(new Paragraph(" "));
+            Paragraph footer = new Paragraph("Generated on: " + java.time.LocalDate.now(), SMALL);
+            footer.setAlignment(Element.ALIGN_RIGHT);
+            document.add(footer);
+
+            document.close();
 
         } catch (Exception e) {
-            e.printStackTrace();
-            throw new RuntimeException("PDF generation failed: " + e.getMessage());
+            throw new RuntimeException("PDF generation failed: " + e.getMessage(), e);
+        }
+    }
+
+    private void writeNotesTable(Document document, Long admissionId, ProgressNoteSource notes) throws DocumentException {
+        PdfPTable table = new PdfPTable(NOTE_COLUMNS.length);
+        table.setWidthPercentage(100);
+        table.setHeaderRows(1);
+        // Incomplete tables are rendered in pieces: each document.add writes the pending rows and drops them
+        table.setComplete(false);
+        for (String column : NOTE_COLUMNS) {
+            PdfPCell cell = new PdfPCell(new Phrase(column, TABLE_HEADER));
+            cell.setGrayFill(0.9f);
+            table.addCell(cell);
         }
+
+        int[] rows = {0};
+        DocumentException[] failure = {null};
+        notes.forEachNote(admissionId, note -> {
+            if (failure[0] != null) {
+                return;
+            }
+            table.addCell(new Phrase(note.createdAt() != null ? note.createdAt().format(NOTE_TIME_FORMAT) : "-", TABLE_CELL));
+            table.addCell(new Phrase(format(note.tempC()), TABLE_CELL));
+            table.addCell(new Phrase(format(note.weightKg()), TABLE_CELL));
+            table.addCell(new Phrase(note.bpHigh() != null || note.bpLow() != null
+                    ? format(note.bpHigh()) + "/" + format(note.bpLow()) : "-", TABLE_CELL));
+            table.addCell(new Phrase(format(note.heartRate()), TABLE_CELL));
+            table.addCell(new Phrase(format(note.inputMl()), TABLE_CELL));
+            table.addCell(new Phrase(format(note.urineOutputMl()), TABLE_CELL));
+            table.addCell(new Phrase(format(note.pdBalance()), TABLE_CELL));
+            table.addCell(new Phrase(format(note.totalBalance()), TABLE_CELL));
+            if (++rows[0] % NOTE_ROWS_PER_FLUSH == 0) {
+                try {
+                    document.add(table);
+                } catch (DocumentException e) {
+                    failure[0] = e;
+                }
+            }
+        });
+        if (failure[0] != null) {
+            throw failure[0];
+        }
+
+        if (rows[0] == 0) {
+            document.add(new Paragraph("No progress notes recorded.", SMALL));
+            return;
+        }
+        table.setComplete(true);
+        document.add(table);
+    }
+
+    private void addSection(Document document, String title, String text) throws DocumentException {
+        if (text == null || text.trim().isEmpty()) {
+            return;
+        }
+        document.add(new Paragraph(title + ":", NORMAL));
+        Paragraph body = new Paragraph(text, NORMAL);
+        body.setAlignment(Element.ALIGN_JUSTIFIED);
+        document.add(body);
+    }
+
+    private static String format(Number value) {
+        return value != null ? value.toString() : "-";
     }
 
     private String safeString(String value) {
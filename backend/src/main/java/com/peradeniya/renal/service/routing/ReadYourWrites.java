@@ -0,0 +1,103 @@
+package com.peradeniya.renal.service.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.peradeniya.renal.service.TransactionHooks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Decides when a read-only transaction must still go to the primary rather than the replica
+ * (see ReadWriteRoutingDataSource): for renal.datasource.replica.read-your-writes after a write
+ * commits, reads about the same PHN stay on the primary so they never see replica lag.
+ *
+ * The PHN a thread is working on is bound per request from the URL (/patients/{phn}/..., ?phn=).
+ * Any read-write transaction on a thread with a bound PHN counts as a write to that patient.
+ * Writes whose PHN only arrives in the body report it with {@link #written(String)}. Reads made while
+ * handling a write request (POST, PUT, ...) always use the primary, since they feed the write.
+ */
+@Component
+public class ReadYourWrites {
+
+    private static final int MAX_TRACKED_PHNS = 100_000;
+
+    private final boolean enabled;
+    private final Cache<String, Boolean> recentWrites;
+    private final ThreadLocal<String> currentPhn = new ThreadLocal<>();
+    private final ThreadLocal<Boolean> primaryOnly = new ThreadLocal<>();
+
+    public ReadYourWrites(
+            @Value("${renal.datasource.replica.url:}") String replicaUrl,
+            @Value("${renal.datasource.replica.read-your-writes:5s}") Duration window) {
+        this.enabled = !replicaUrl.isBlank();
+        this.recentWrites = Caffeine.newBuilder()
+                .expireAfterWrite(window)
+                .maximumSize(MAX_TRACKED_PHNS)
+                .build();
+    }
+
+    public void bind(String phn, boolean writeRequest) {
+        if (phn != null) {
+            currentPhn.set(normalize(phn));
+        }
+        if (writeRequest) {
+            primaryOnly.set(Boolean.TRUE);
+        }
+    }
+
+    public void clear() {
+        currentPhn.remove();
+        primaryOnly.remove();
+    }
+
+    // Pins the PHN to the primary once the current transaction commits
+    public void written(String phn) {
+        if (enabled && phn != null) {
+            String key = normalize(phn);
+            TransactionHooks.afterCommit(() -> recentWrites.put(key, Boolean.TRUE));
+        }
+    }
+
+    // A read-write transaction is starting on this thread
+    void writing() {
+        String phn = currentPhn.get();
+        if (phn != null) {
+            written(phn);
+        }
+    }
+
+    boolean readFromPrimary() {
+        if (primaryOnly.get() != null) {
+            return true;
+        }
+        String phn = currentPhn.get();
+        return phn != null && recentWrites.getIfPresent(phn) != null;
+    }
+
+    // The rest of the current request reads from the primary (cleared with the request's binding)
+    public void pinRequestToPrimary() {
+        if (enabled) {
+            primaryOnly.set(Boolean.TRUE);
+        }
+    }
+
+    // For reads that must see a row committed moments ago by another thread (e.g. a just-queued PDF render)
+    public <T> T onPrimary(Supplier<T> read) {
+        if (primaryOnly.get() != null) {
+            return read.get();
+        }
+        primaryOnly.set(Boolean.TRUE);
+        try {
+            return read.get();
+        } finally {
+            primaryOnly.remove();
+        }
+    }
+
+    private static String normalize(String phn) {
+        return phn.replaceAll("[^0-9]", "");
+    }
+}
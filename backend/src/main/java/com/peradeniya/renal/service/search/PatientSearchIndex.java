@@ -0,0 +1,331 @@
+package com.peradeniya.renal.service.search;
+
+import com.peradeniya.renal.dto.PatientSearchResult;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.repository.PatientRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+/**
+ * In-memory autocomplete index over patient name, NIC and phone.
+ *
+ * Tokens live in a sorted map, so a prefix lookup is a range scan (the same walk a trie does, without
+ * a node object per character). Typos are handled with a trigram index over the token vocabulary:
+ * candidate tokens sharing enough trigrams with the query are verified with a bounded edit distance.
+ * The fuzzy pass only runs when exact and prefix matches come up short.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PatientSearchIndex {
+
+    private static final int EXACT_SCORE = 3;
+    private static final int PREFIX_SCORE = 2;
+    private static final int FUZZY_SCORE = 1;
+
+    // Caps keep one-letter queries and common trigrams from touching the whole registry
+    private static final int MAX_PREFIX_TOKENS = 500;
+    private static final int MAX_CANDIDATES = 5000;
+    private static final int MAX_FUZZY_SEEDS = 2000;
+    private static final int MAX_FUZZY_TOKENS = 200;
+
+    private static final Pattern DIGIT_SEPARATORS = Pattern.compile("(?<=\\p{N})[^\\p{L}\\p{N}]+(?=\\p{N})");
+
+    private final PatientRepository patientRepository;
+
+    private final Map<Long, PatientSearchResult> patients = new ConcurrentHashMap<>();
+    private final Map<Long, String[]> patientTokens = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> tokens = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<String>> trigrams = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        patientRepository.findAllSearchEntries().forEach(this::add);
+        log.info("Patient search index loaded: {} patients, {} tokens in {} ms", patients.size(), tokens.size(), System.currentTimeMillis() - start);
+    }
+
+    public void add(Patient patient) {
+        add(new PatientSearchResult(patient.getId(), patient.getPhn(), patient.getName(),
+                patient.getNic(), patient.getPhone()));
+    }
+
+    public void add(PatientSearchResult entry) {
+        if (entry.getId() == null) {
+            return;
+        }
+        List<String> own = tokensOf(entry);
+        patients.put(entry.getId(), entry);
+        patientTokens.put(entry.getId(), own.toArray(String[]::new));
+        for (String token : own) {
+            tokens.computeIfAbsent(token, t -> {
+                for (String gram : trigramsOf(t)) {
+                    trigrams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(t);
+                }
+                return ConcurrentHashMap.newKeySet();
+            }).add(entry.getId());
+        }
+    }
+
+    public int size() {
+        return patients.size();
+    }
+
+    public List<PatientSearchResult> search(String query, int limit) {
+        List<String> queryTokens = tokenize(query);
+        if (queryTokens.isEmpty()) {
+            return List.of();
+        }
+
+        // Candidates come from the most selective query token only; every other token is checked
+        // against the candidate's own handful of tokens instead of merging whole posting lists
+        List<Set<Long>> driver = null;
+        String driverToken = null;
+        int driverSize = Integer.MAX_VALUE;
+        for (String token : queryTokens) {
+            List<Set<Long>> postings = prefixPostings(token);
+            int size = 0;
+            for (Set<Long> ids : postings) {
+                size += ids.size();
+            }
+            if (size < driverSize) {
+                driver = postings;
+                driverToken = token;
+                driverSize = size;
+            }
+        }
+
+        // Typo matches per query token, worked out at most once and only when a candidate needs them
+        Map<String, Set<String>> fuzzyMatches = new HashMap<>();
+        Set<Long> candidates = new HashSet<>();
+        collect(candidates, driver);
+        if (candidates.size() < limit && fuzzyEligible(driverToken)) {
+            List<Set<Long>> fuzzy = new ArrayList<>();
+            for (String candidate : fuzzyMatches.computeIfAbsent(driverToken, this::fuzzyCandidates)) {
+                fuzzy.add(tokens.getOrDefault(candidate, Set.of()));
+            }
+            collect(candidates, fuzzy);
+        }
+
+        // Only the best `limit` are kept, so the candidates are never sorted as a whole
+        Comparator<Scored> ranking = Comparator.comparingInt((Scored s) -> -s.score())
+                .thenComparing(s -> s.patient().getName() != null ? s.patient().getName() : "");
+        PriorityQueue<Scored> best = new PriorityQueue<>(ranking.reversed());
+        for (Long id : candidates) {
+            PatientSearchResult patient = patients.get(id);
+            String[] own = patientTokens.get(id);
+            if (patient == null || own == null) {
+                continue;
+            }
+            int total = 0;
+            for (String token : queryTokens) {
+                int score = score(token, own, fuzzyMatches);
+                if (score == 0) {
+                    total = 0;
+                    break;
+                }
+                total += score;
+            }
+            if (total > 0) {
+                best.add(new Scored(patient, total));
+                if (best.size() > limit) {
+                    best.poll();
+                }
+            }
+        }
+
+        return best.stream()
+                .sorted(ranking)
+                .map(Scored::patient)
+                .toList();
+    }
+
+    private record Scored(PatientSearchResult patient, int score) {
+    }
+
+    private List<Set<Long>> prefixPostings(String token) {
+        List<Set<Long>> postings = new ArrayList<>();
+        NavigableMap<String, Set<Long>> prefixed = tokens.subMap(token, true, token + Character.MAX_VALUE, false);
+        for (Set<Long> ids : prefixed.values()) {
+            postings.add(ids);
+            if (postings.size() >= MAX_PREFIX_TOKENS) {
+                break;
+            }
+        }
+        return postings;
+    }
+
+    private static void collect(Set<Long> candidates, List<Set<Long>> postings) {
+        for (Set<Long> ids : postings) {
+            for (Long id : ids) {
+                candidates.add(id);
+                if (candidates.size() >= MAX_CANDIDATES) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private int score(String queryToken, String[] own, Map<String, Set<String>> fuzzyMatches) {
+        int best = 0;
+        for (String token : own) {
+            if (token.equals(queryToken)) {
+                return EXACT_SCORE;
+            }
+            if (token.startsWith(queryToken)) {
+                best = PREFIX_SCORE;
+            }
+        }
+        if (best == 0 && fuzzyEligible(queryToken)) {
+            Set<String> typos = fuzzyMatches.computeIfAbsent(queryToken, this::fuzzyCandidates);
+            for (String token : own) {
+                if (typos.contains(token)) {
+                    return FUZZY_SCORE;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Typos are only forgiven in words; phone and NIC digits must match exactly or as a prefix
+    private static boolean fuzzyEligible(String token) {
+        return token.length() >= 3 && !token.chars().allMatch(Character::isDigit);
+    }
+
+    private static int maxDistance(String token) {
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    private Set<String> fuzzyCandidates(String token) {
+        int maxDistance = maxDistance(token);
+        List<String> grams = trigramsOf(token);
+        int required = Math.max(1, grams.size() - 3 * maxDistance);
+
+        // A token sharing `required` grams must contain one of the rarest (size - required + 1) grams,
+        // so only those are scanned; the shared count is then worked out per candidate
+        List<Set<String>> postings = new ArrayList<>();
+        for (String gram : grams) {
+            postings.add(trigrams.getOrDefault(gram, Set.of()));
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> seeds = new HashSet<>();
+        for (Set<String> posting : postings.subList(0, grams.size() - required + 1)) {
+            for (String candidate : posting) {
+                if (seeds.size() >= MAX_FUZZY_SEEDS) {
+                    break;
+                }
+                if (Math.abs(candidate.length() - token.length()) <= maxDistance) {
+                    seeds.add(candidate);
+                }
+            }
+        }
+
+        Set<String> queryGrams = new HashSet<>(grams);
+        List<Map.Entry<String, Integer>> shared = new ArrayList<>();
+        for (String candidate : seeds) {
+            int count = 0;
+            for (String gram : trigramsOf(candidate)) {
+                if (queryGrams.contains(gram)) {
+                    count++;
+                }
+            }
+            if (count >= required) {
+                shared.add(Map.entry(candidate, count));
+            }
+        }
+        shared.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        Set<String> result = new HashSet<>();
+        for (Map.Entry<String, Integer> e : shared.subList(0, Math.min(shared.size(), MAX_FUZZY_TOKENS))) {
+            if (withinDistance(token, e.getKey(), maxDistance)) {
+                result.add(e.getKey());
+            }
+        }
+        return result;
+    }
+
+    // Levenshtein distance with an early exit once every cell in a row exceeds the bound
+    private static boolean withinDistance(String a, String b, int max) {
+        int[] prev = new int[b.length() + 1];
+        int[] curr = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            curr[0] = i;
+            int rowMin = curr[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(curr[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) {
+                return false;
+            }
+            int[] swap = prev;
+            prev = curr;
+            curr = swap;
+        }
+        return prev[b.length()] <= max;
+    }
+
+    private static List<String> tokensOf(PatientSearchResult entry) {
+        List<String> result = new ArrayList<>(tokenize(entry.getName()));
+        if (entry.getNic() != null) {
+            String nic = entry.getNic().toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "");
+            if (!nic.isEmpty()) {
+                result.add(nic);
+            }
+        }
+        if (entry.getPhone() != null) {
+            String phone = entry.getPhone().replaceAll("[^0-9]", "");
+            if (!phone.isEmpty()) {
+                result.add(phone);
+            }
+        }
+        return result;
+    }
+
+    private static List<String> tokenize(String text) {
+        List<String> result = new ArrayList<>();
+        if (text == null) {
+            return result;
+        }
+        // "077 123 4567" and "077-1234567" become the one digits-only token phones and NICs are indexed as
+        String normalized = DIGIT_SEPARATORS.matcher(text.toLowerCase(Locale.ROOT)).replaceAll("");
+        for (String part : normalized.split("[^\\p{L}\\p{N}]+")) {
+            if (!part.isEmpty()) {
+                result.add(part);
+            }
+        }
+        return result;
+    }
+
+    // Padded so that leading/trailing characters carry their own grams ("^jo", "hn$")
+    private static List<String> trigramsOf(String token) {
+        String padded = "^" + token + "$";
+        List<String> grams = new ArrayList<>(padded.length());
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,43 @@
+package com.peradeniya.renal.service.vitals;
+
+import com.peradeniya.renal.model.ProgressNote;
+
+import java.util.function.Function;
+
+// The ProgressNote readings kept in the vitals store. Decimal signs keep two decimal places
+// losslessly via scaled deltas and fall back to XOR of the raw double bits otherwise.
+public enum VitalSign {
+    TEMP_C(true, ProgressNote::getTempC),
+    WEIGHT_KG(true, ProgressNote::getWeightKg),
+    BP_HIGH(false, ProgressNote::getBpHigh),
+    BP_LOW(false, ProgressNote::getBpLow),
+    HEART_RATE(false, ProgressNote::getHeartRate),
+    INPUT_ML(false, ProgressNote::getInputMl),
+    URINE_OUTPUT_ML(false, ProgressNote::getUrineOutputMl),
+    PD_BALANCE(false, ProgressNote::getPdBalance),
+    TOTAL_BALANCE(false, ProgressNote::getTotalBalance);
+
+    public static final int COUNT = values().length;
+
+    private final boolean decimal;
+    private final Function<ProgressNote, Number> extractor;
+
+    VitalSign(boolean decimal, Function<ProgressNote, Number> extractor) {
+        this.decimal = decimal;
+        this.extractor = extractor;
+    }
+
+    public boolean isDecimal() {
+        return decimal;
+    }
+
+    // NaN marks a reading that was not recorded
+    public static double[] valuesOf(ProgressNote note) {
+        double[] values = new double[COUNT];
+        for (VitalSign sign : values()) {
+            Number n = sign.extractor.apply(note);
+            values[sign.ordinal()] = n != null ? n.doubleValue() : Double.NaN;
+        }
+        return values;
+    }
+}
@@ -0,0 +1,15 @@
+package com.peradeniya.renal.service.vitals;
+
+import java.util.Locale;
+
+public enum VitalsAggregation {
+    AVG, MIN, MAX;
+
+    public static VitalsAggregation parse(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid agg '" + value + "', expected avg, min or max");
+        }
+    }
+}
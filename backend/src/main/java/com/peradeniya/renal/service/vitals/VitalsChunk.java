@@ -0,0 +1,234 @@
+package com.peradeniya.renal.service.vitals;
+
+import java.util.Arrays;
+
+/**
+ * Up to {@link #MAX_ROWS} readings stored column by column in compact byte streams:
+ * <ul>
+ *   <li>timestamps (epoch seconds) as zigzag varints of the delta-of-delta</li>
+ *   <li>a presence bitmask per row, so unrecorded readings cost nothing</li>
+ *   <li>integer signs as zigzag varints of the delta to the previous recorded value</li>
+ *   <li>decimal signs as scaled (x100) deltas, or the XOR with the previous double's bits when
+ *       the value has more than two decimal places</li>
+ * </ul>
+ * A typical hourly reading takes 10-20 bytes instead of a ProgressNote entity with nine boxed fields.
+ * Not thread-safe; {@link VitalsSeries} guards access.
+ */
+final class VitalsChunk {
+
+    static final int MAX_ROWS = 256;
+    private static final double DECIMAL_SCALE = 100.0;
+
+    interface RowConsumer {
+        void accept(long epochSecond, double[] values);
+    }
+
+    private final ByteSink timestamps = new ByteSink(64);
+    private final ByteSink masks = new ByteSink(32);
+    private final ByteSink[] columns = new ByteSink[VitalSign.COUNT];
+
+    // Encoder state
+    private long prevTs;
+    private long prevTsDelta;
+    private final long[] prevScaled = new long[VitalSign.COUNT];
+    private final long[] prevBits = new long[VitalSign.COUNT];
+
+    private int rows;
+    private long minTs = Long.MAX_VALUE;
+    private long maxTs = Long.MIN_VALUE;
+
+    VitalsChunk() {
+        for (int i = 0; i < columns.length; i++) {
+            columns[i] = new ByteSink(16);
+        }
+    }
+
+    boolean isFull() {
+        return rows >= MAX_ROWS;
+    }
+
+    int rows() {
+        return rows;
+    }
+
+    boolean overlaps(long from, long to) {
+        return rows > 0 && minTs <= to && maxTs >= from;
+    }
+
+    long encodedBytes() {
+        long total = timestamps.len + masks.len;
+        for (ByteSink column : columns) {
+            total += column.len;
+        }
+        return total;
+    }
+
+    // Drops spare capacity once the chunk will not grow any more
+    void seal() {
+        timestamps.trim();
+        masks.trim();
+        for (ByteSink column : columns) {
+            column.trim();
+        }
+    }
+
+    void append(long epochSecond, double[] values) {
+        long delta = epochSecond - prevTs;
+        timestamps.writeVarint(zigzag(rows == 0 ? epochSecond : delta - prevTsDelta));
+        prevTsDelta = rows == 0 ? 0 : delta;
+        prevTs = epochSecond;
+
+        long mask = 0;
+        for (VitalSign sign : VitalSign.values()) {
+            int i = sign.ordinal();
+            double value = values[i];
+            if (Double.isNaN(value)) {
+                continue;
+            }
+            mask |= 1L << i;
+            if (sign.isDecimal()) {
+                writeDecimal(i, value);
+            } else {
+                long v = (long) value;
+                columns[i].writeVarint(zigzag(v - prevScaled[i]));
+                prevScaled[i] = v;
+            }
+        }
+        masks.writeVarint(mask);
+
+        rows++;
+        minTs = Math.min(minTs, epochSecond);
+        maxTs = Math.max(maxTs, epochSecond);
+    }
+
+    private void writeDecimal(int i, double value) {
+        long bits = Double.doubleToRawLongBits(value);
+        long scaled = Math.round(value * DECIMAL_SCALE);
+        long delta = scaled - prevScaled[i];
+        if (Double.doubleToRawLongBits(scaled / DECIMAL_SCALE) == bits && Math.abs(delta) < (1L << 60)) {
+            // Even marker: scaled delta
+            columns[i].writeVarint(zigzag(delta) << 1);
+            prevScaled[i] = scaled;
+        } else {
+            // Odd marker carrying the trailing-zero count, then the significant XOR bits
+            long xor = bits ^ prevBits[i];
+            int trailing = xor == 0 ? 0 : Long.numberOfTrailingZeros(xor);
+            columns[i].writeVarint(((long) trailing << 1) | 1);
+            columns[i].writeVarint(xor >>> trailing);
+            prevScaled[i] = scaled;
+        }
+        prevBits[i] = bits;
+    }
+
+    void forEach(RowConsumer consumer) {
+        ByteSource ts = new ByteSource(timestamps);
+        ByteSource maskSource = new ByteSource(masks);
+        ByteSource[] sources = new ByteSource[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            sources[i] = new ByteSource(columns[i]);
+        }
+
+        long[] scaled = new long[VitalSign.COUNT];
+        long[] bits = new long[VitalSign.COUNT];
+        double[] values = new double[VitalSign.COUNT];
+        long prev = 0;
+        long prevDelta = 0;
+
+        for (int row = 0; row < rows; row++) {
+            long epochSecond;
+            if (row == 0) {
+                epochSecond = unzigzag(ts.readVarint());
+            } else {
+                long delta = prevDelta + unzigzag(ts.readVarint());
+                epochSecond = prev + delta;
+                prevDelta = delta;
+            }
+            prev = epochSecond;
+
+            long mask = maskSource.readVarint();
+            for (VitalSign sign : VitalSign.values()) {
+                int i = sign.ordinal();
+                if ((mask & (1L << i)) == 0) {
+                    values[i] = Double.NaN;
+                    continue;
+                }
+                if (sign.isDecimal()) {
+                    long marker = sources[i].readVarint();
+                    if ((marker & 1) == 0) {
+                        scaled[i] += unzigzag(marker >>> 1);
+                        values[i] = scaled[i] / DECIMAL_SCALE;
+                        bits[i] = Double.doubleToRawLongBits(values[i]);
+                    } else {
+                        int trailing = (int) (marker >>> 1);
+                        bits[i] ^= sources[i].readVarint() << trailing;
+                        values[i] = Double.longBitsToDouble(bits[i]);
+                        scaled[i] = Math.round(values[i] * DECIMAL_SCALE);
+                    }
+                } else {
+                    scaled[i] += unzigzag(sources[i].readVarint());
+                    values[i] = scaled[i];
+                }
+            }
+            consumer.accept(epochSecond, values);
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static final class ByteSink {
+        private byte[] buf;
+        private int len;
+
+        ByteSink(int capacity) {
+            buf = new byte[capacity];
+        }
+
+        void writeVarint(long v) {
+            while ((v & ~0x7FL) != 0) {
+                write((byte) ((v & 0x7F) | 0x80));
+                v >>>= 7;
+            }
+            write((byte) v);
+        }
+
+        private void write(byte b) {
+            if (len == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[len++] = b;
+        }
+
+        void trim() {
+            if (buf.length != len) {
+                buf = Arrays.copyOf(buf, len);
+            }
+        }
+    }
+
+    private static final class ByteSource {
+        private final byte[] buf;
+        private int pos;
+
+        ByteSource(ByteSink sink) {
+            this.buf = sink.buf;
+        }
+
+        long readVarint() {
+            long result = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf[pos++];
+                result |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return result;
+        }
+    }
+}
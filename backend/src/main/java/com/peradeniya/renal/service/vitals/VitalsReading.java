@@ -0,0 +1,30 @@
+package com.peradeniya.renal.service.vitals;
+
+import java.time.LocalDateTime;
+
+// Scalar projection of a ProgressNote, so loading a series never builds entities
+public record VitalsReading(
+        Long id,
+        LocalDateTime createdAt,
+        Double tempC,
+        Double weightKg,
+        Integer bpHigh,
+        Integer bpLow,
+        Integer heartRate,
+        Integer inputMl,
+        Integer urineOutputMl,
+        Integer pdBalance,
+        Integer totalBalance
+) {
+
+    double[] values() {
+        return new double[] {
+                value(tempC), value(weightKg), value(bpHigh), value(bpLow), value(heartRate),
+                value(inputMl), value(urineOutputMl), value(pdBalance), value(totalBalance)
+        };
+    }
+
+    private static double value(Number n) {
+        return n != null ? n.doubleValue() : Double.NaN;
+    }
+}
@@ -0,0 +1,114 @@
+package com.peradeniya.renal.service.vitals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * All vitals readings of one admission as a list of encoded chunks; only the last chunk takes appends.
+ * Readings are expected roughly in time order but nothing depends on it: chunks keep their own
+ * min/max timestamps and queries check every row against the range.
+ */
+final class VitalsSeries {
+
+    // A note that commits while the series is being loaded is appended once the load finishes, and
+    // the load's query may already have returned it, so the most recent ids are remembered and repeats dropped.
+    private static final int RECENT_IDS = 64;
+
+    private final List<VitalsChunk> chunks = new ArrayList<>();
+    private final long[] recentIds = new long[RECENT_IDS];
+    private int recentCount;
+    private int readings;
+
+    synchronized void append(Long noteId, long epochSecond, double[] values) {
+        if (noteId != null) {
+            for (int i = 0; i < Math.min(recentCount, RECENT_IDS); i++) {
+                if (recentIds[i] == noteId) {
+                    return;
+                }
+            }
+            recentIds[recentCount++ % RECENT_IDS] = noteId;
+        }
+
+        VitalsChunk open = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+        if (open == null || open.isFull()) {
+            if (open != null) {
+                open.seal();
+            }
+            open = new VitalsChunk();
+            chunks.add(open);
+        }
+        open.append(epochSecond, values);
+        readings++;
+    }
+
+    synchronized int readings() {
+        return readings;
+    }
+
+    synchronized long encodedBytes() {
+        long total = 0;
+        for (VitalsChunk chunk : chunks) {
+            total += chunk.encodedBytes();
+        }
+        return total;
+    }
+
+    /**
+     * Folds every reading in [from, to) into buckets of {@code step} seconds aligned to the epoch.
+     * Returns bucket start -> per-sign aggregate (NaN where the sign was never recorded in the bucket).
+     */
+    synchronized TreeMap<Long, Bucket> downsample(long from, long to, long step, VitalsAggregation agg) {
+        TreeMap<Long, Bucket> buckets = new TreeMap<>();
+        for (VitalsChunk chunk : chunks) {
+            if (!chunk.overlaps(from, to - 1)) {
+                continue;
+            }
+            chunk.forEach((epochSecond, values) -> {
+                if (epochSecond < from || epochSecond >= to) {
+                    return;
+                }
+                long start = Math.floorDiv(epochSecond, step) * step;
+                buckets.computeIfAbsent(start, s -> new Bucket()).add(values, agg);
+            });
+        }
+        return buckets;
+    }
+
+    static final class Bucket {
+        private final double[] acc = new double[VitalSign.COUNT];
+        private final int[] counts = new int[VitalSign.COUNT];
+        private int readings;
+
+        private void add(double[] values, VitalsAggregation agg) {
+            readings++;
+            for (int i = 0; i < values.length; i++) {
+                double v = values[i];
+                if (Double.isNaN(v)) {
+                    continue;
+                }
+                if (counts[i]++ == 0) {
+                    acc[i] = v;
+                } else {
+                    acc[i] = switch (agg) {
+                        case AVG -> acc[i] + v;
+                        case MIN -> Math.min(acc[i], v);
+                        case MAX -> Math.max(acc[i], v);
+                    };
+                }
+            }
+        }
+
+        int readings() {
+            return readings;
+        }
+
+        double value(VitalSign sign, VitalsAggregation agg) {
+            int i = sign.ordinal();
+            if (counts[i] == 0) {
+                return Double.NaN;
+            }
+            return agg == VitalsAggregation.AVG ? acc[i] / counts[i] : acc[i];
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.peradeniya.renal.service.vitals;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.peradeniya.renal.dto.VitalsBucket;
+import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.repository.ProgressNoteRepository;
+import com.peradeniya.renal.service.TransactionHooks;
+import com.peradeniya.renal.service.routing.ReadYourWrites;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compressed per-admission time series of ProgressNote vitals, kept next to the progress_note table
+ * so trend charts can be downsampled in memory instead of loading every note.
+ *
+ * A series is built from a scalar projection the first time its admission is charted, then kept
+ * current by {@link #append(List)} from the note write paths. The table stays the source of truth:
+ * series are bounded by admission count and an evicted one is simply rebuilt on the next query.
+ */
+@Slf4j
+@Component
+public class VitalsStore {
+
+    private final ProgressNoteRepository progressNoteRepository;
+    private final ReadYourWrites readYourWrites;
+    private final Cache<Long, VitalsSeries> series;
+
+    public VitalsStore(
+            ProgressNoteRepository progressNoteRepository,
+            ReadYourWrites readYourWrites,
+            @Value("${renal.vitals.max-admissions:1000}") long maxAdmissions) {
+        this.progressNoteRepository = progressNoteRepository;
+        this.readYourWrites = readYourWrites;
+        this.series = Caffeine.newBuilder()
+                .maximumSize(maxAdmissions)
+                .build();
+    }
+
+    // Appends once the surrounding transaction (if any) has committed, so rolled back notes never show up
+    public void append(List<ProgressNote> notes) {
+        TransactionHooks.afterCommit(() -> appendNow(notes));
+    }
+
+    private void appendNow(List<ProgressNote> notes) {
+        for (ProgressNote note : notes) {
+            if (note.getAdmission() == null || note.getCreatedAt() == null) {
+                continue;
+            }
+            // Series that are not loaded yet will read the note from the table. One being loaded is waited
+            // for: its query may have run before this note committed, so the note is appended to it too
+            long epochSecond = toEpochSecond(note.getCreatedAt());
+            double[] values = VitalSign.valuesOf(note);
+            series.asMap().computeIfPresent(note.getAdmission().getId(), (id, target) -> {
+                target.append(note.getId(), epochSecond, values);
+                return target;
+            });
+        }
+    }
+
+    public void evict(Long admissionId) {
+        series.invalidate(admissionId);
+    }
+
+    public List<VitalsBucket> downsample(Long admissionId, LocalDateTime from, LocalDateTime to,
+                                         Duration step, VitalsAggregation agg) {
+        VitalsSeries target = series.get(admissionId, this::load);
+        TreeMap<Long, VitalsSeries.Bucket> buckets = target.downsample(
+                toEpochSecond(from), toEpochSecond(to), step.toSeconds(), agg);
+
+        List<VitalsBucket> result = new ArrayList<>(buckets.size());
+        for (Map.Entry<Long, VitalsSeries.Bucket> e : buckets.entrySet()) {
+            VitalsSeries.Bucket bucket = e.getValue();
+            VitalsBucket point = new VitalsBucket();
+            point.setStart(LocalDateTime.ofEpochSecond(e.getKey(), 0, ZoneOffset.UTC));
+            point.setReadings(bucket.readings());
+            point.setTempC(value(bucket, VitalSign.TEMP_C, agg));
+            point.setWeightKg(value(bucket, VitalSign.WEIGHT_KG, agg));
+            point.setBpHigh(value(bucket, VitalSign.BP_HIGH, agg));
+            point.setBpLow(value(bucket, VitalSign.BP_LOW, agg));
+            point.setHeartRate(value(bucket, VitalSign.HEART_RATE, agg));
+            point.setInputMl(value(bucket, VitalSign.INPUT_ML, agg));
+            point.setUrineOutputMl(value(bucket, VitalSign.URINE_OUTPUT_ML, agg));
+            point.setPdBalance(value(bucket, VitalSign.PD_BALANCE, agg));
+            point.setTotalBalance(value(bucket, VitalSign.TOTAL_BALANCE, agg));
+            result.add(point);
+        }
+        return result;
+    }
+
+    public Map<String, Object> stats() {
+        long readings = 0;
+        long bytes = 0;
+        for (VitalsSeries s : series.asMap().values()) {
+            readings += s.readings();
+            bytes += s.encodedBytes();
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("admissions", series.estimatedSize());
+        result.put("readings", readings);
+        result.put("encodedBytes", bytes);
+        result.put("bytesPerReading", readings == 0 ? 0 : (double) bytes / readings);
+        return result;
+    }
+
+    private VitalsSeries load(Long admissionId) {
+        long start = System.currentTimeMillis();
+        VitalsSeries loaded = new VitalsSeries();
+        // From the primary: a replica behind it would leave out notes whose appends have already run
+        List<VitalsReading> readings = readYourWrites.onPrimary(() -> progressNoteRepository.findVitalsByAdmissionId(admissionId));
+        for (VitalsReading reading : readings) {
+            loaded.append(reading.id(), toEpochSecond(reading.createdAt()), reading.values());
+        }
+        log.atDebug()
+                .addKeyValue("admissionId", admissionId)
+                .log("Vitals series loaded: {} readings, {} bytes in {} ms", loaded.readings(), loaded.encodedBytes(), System.currentTimeMillis() - start);
+        return loaded;
+    }
+
+    private static Double value(VitalsSeries.Bucket bucket, VitalSign sign, VitalsAggregation agg) {
+        double v = bucket.value(sign, agg);
+        return Double.isNaN(v) ? null : v;
+    }
+
+    // createdAt is a zone-less server-local timestamp, so it is encoded as if it were UTC and decoded the same way
+    private static long toEpochSecond(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,73 @@
+package com.peradeniya.renal.config;
+
+import com.peradeniya.renal.dto.PatientCreateRequest;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.service.PatientService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class ActiveAdmissionMigrationTest {
+
+    @Autowired
+    private ActiveAdmissionMigration migration;
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void collapsesDuplicateActiveAdmissionsToTheNewestAndRestoresTheConstraint() {
+        Patient duplicated = register("6100001");
+        Patient single = register("6100002");
+        long singleAdmission = activeAdmissions(single).get(0);
+
+        // A database from before the constraint: patients could end up with several active admissions
+        jdbcTemplate.execute("alter table admission drop constraint " + Admission.ACTIVE_PATIENT_CONSTRAINT);
+        insertActiveAdmission(900_000_002L, duplicated);
+        insertActiveAdmission(900_000_001L, duplicated);
+        assertThat(activeAdmissions(duplicated)).hasSize(3);
+
+        migration.migrate();
+
+        assertThat(activeAdmissions(duplicated)).containsExactly(900_000_002L);
+        assertThat(activeAdmissions(single)).containsExactly(singleAdmission);
+        assertThat(jdbcTemplate.queryForObject("select version from admission where id = 900000001", Long.class)).isEqualTo(1L);
+        assertThatThrownBy(() -> insertActiveAdmission(900_000_003L, single))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        // Nothing left to do on the next start
+        migration.migrate();
+        assertThat(activeAdmissions(duplicated)).containsExactly(900_000_002L);
+        assertThat(jdbcTemplate.queryForObject("select version from admission where id = 900000001", Long.class)).isEqualTo(1L);
+    }
+
+    private void insertActiveAdmission(long id, Patient patient) {
+        jdbcTemplate.update("insert into admission (id, version, bht_number, number, active, discharge_summary_available, patient_id) "
+                + "values (?, 0, ?, 1, true, false, ?)", id, "BHT-MIGRATION-" + id, patient.getId());
+    }
+
+    private List<Long> activeAdmissions(Patient patient) {
+        return jdbcTemplate.queryForList("select id from admission where patient_id = ? and active = true order by id",
+                Long.class, patient.getId());
+    }
+
+    private Patient register(String phn) {
+        PatientCreateRequest request = new PatientCreateRequest();
+        request.setPhn(phn);
+        request.setName("Migration Test");
+        request.setWardNumber("7");
+        return patientService.createPatient(request);
+    }
+}
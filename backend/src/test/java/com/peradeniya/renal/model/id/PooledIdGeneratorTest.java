@@ -0,0 +1,151 @@
+package com.peradeniya.renal.model.id;
+
+import com.peradeniya.renal.config.IdAllocationDataSource;
+import com.peradeniya.renal.dto.PatientCreateRequest;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.repository.ProgressNoteRepository;
+import com.peradeniya.renal.service.AdmissionService;
+import com.peradeniya.renal.service.PatientService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class PooledIdGeneratorTest {
+
+    private static final String SEGMENT = PooledIdGenerator.segmentFor(ProgressNote.class);
+
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private AdmissionService admissionService;
+    @Autowired
+    private ProgressNoteRepository progressNoteRepository;
+    @Autowired
+    private IdAllocationDataSource idAllocationDataSource;
+
+    @Test
+    void segmentsAreNamedLikeTheirTables() {
+        assertThat(PooledIdGenerator.segmentFor(ProgressNote.class)).isEqualTo("progress_note");
+        assertThat(PooledIdGenerator.segmentFor(Patient.class)).isEqualTo("patient");
+    }
+
+    /**
+     * Threads inserting notes on this node race with "another node" reserving blocks of the same
+     * segment straight on id_allocations. Every id must be unique, none may fall in a block the other
+     * node reserved, and the stored value must cover every id handed out.
+     */
+    @Test
+    void concurrentInsertsAndForeignReservationsNeverShareAnId() throws Exception {
+        Admission admission = admissionFor("6000001");
+        int writers = 8;
+        int notesPerWriter = 150;
+        int foreignBlocks = 40;
+        int foreignBlockSize = 7;
+
+        ConcurrentLinkedQueue<Long> ids = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<long[]> foreign = new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(writers + 1);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                tasks.add(pool.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < notesPerWriter; i++) {
+                        ProgressNote note = new ProgressNote();
+                        note.setAdmission(admission);
+                        ids.add(progressNoteRepository.save(note).getId());
+                    }
+                    return null;
+                }));
+            }
+            tasks.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < foreignBlocks; i++) {
+                    foreign.add(reserveForeignBlock(foreignBlockSize));
+                }
+                return null;
+            }));
+            start.countDown();
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Set<Long> unique = new HashSet<>(ids);
+        assertThat(unique).hasSize(writers * notesPerWriter);
+        for (long[] block : foreign) {
+            assertThat(unique).noneMatch(id -> id >= block[0] && id <= block[1]);
+        }
+        long stored = storedValue();
+        assertThat(unique).allMatch(id -> id <= stored);
+    }
+
+    // The same compare-and-set a second node runs; returns the reserved [first, last]
+    private long[] reserveForeignBlock(int size) throws SQLException {
+        try (Connection connection = idAllocationDataSource.dataSource().getConnection()) {
+            connection.setAutoCommit(true);
+            while (true) {
+                long lastUsed = storedValue(connection);
+                try (PreparedStatement update = connection.prepareStatement("update " + PooledIdGenerator.TABLE_NAME
+                        + " set " + PooledIdGenerator.VALUE_COLUMN + " = ? where " + PooledIdGenerator.VALUE_COLUMN
+                        + " = ? and " + PooledIdGenerator.SEGMENT_COLUMN + " = ?")) {
+                    update.setLong(1, lastUsed + size);
+                    update.setLong(2, lastUsed);
+                    update.setString(3, SEGMENT);
+                    if (update.executeUpdate() == 1) {
+                        return new long[]{lastUsed + 1, lastUsed + size};
+                    }
+                }
+            }
+        }
+    }
+
+    private long storedValue() throws SQLException {
+        try (Connection connection = idAllocationDataSource.dataSource().getConnection()) {
+            return storedValue(connection);
+        }
+    }
+
+    private static long storedValue(Connection connection) throws SQLException {
+        try (PreparedStatement select = connection.prepareStatement("select " + PooledIdGenerator.VALUE_COLUMN
+                + " from " + PooledIdGenerator.TABLE_NAME + " where " + PooledIdGenerator.SEGMENT_COLUMN + " = ?")) {
+            select.setString(1, SEGMENT);
+            try (ResultSet rs = select.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+        }
+    }
+
+    private Admission admissionFor(String phn) {
+        PatientCreateRequest request = new PatientCreateRequest();
+        request.setPhn(phn);
+        request.setName("Id Test");
+        request.setWardNumber("7");
+        Patient patient = patientService.createPatient(request);
+        return admissionService.getActiveAdmission(patient).orElseThrow();
+    }
+}
@@ -0,0 +1,133 @@
+package com.peradeniya.renal.service;
+
+import com.peradeniya.renal.dto.CursorPage;
+import com.peradeniya.renal.dto.PatientCreateRequest;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.model.Patient;
+import com.peradeniya.renal.model.ProgressNote;
+import com.peradeniya.renal.repository.AdmissionRepository;
+import com.peradeniya.renal.repository.ProgressNoteRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class KeysetPagingTest {
+
+    @Autowired
+    private PatientService patientService;
+    @Autowired
+    private AdmissionService admissionService;
+    @Autowired
+    private ProgressNoteService progressNoteService;
+    @Autowired
+    private AdmissionRepository admissionRepository;
+    @Autowired
+    private ProgressNoteRepository progressNoteRepository;
+
+    @Test
+    void notesPageThroughTiesAndUndatedNotesWithoutGapsOrRepeats() {
+        Patient patient = register("5000001");
+        Admission admission = admissionService.getActiveAdmission(patient).orElseThrow();
+
+        LocalDateTime t = LocalDateTime.of(2026, 3, 1, 8, 0);
+        List<ProgressNote> notes = new ArrayList<>();
+        for (LocalDateTime createdAt : Arrays.asList(t, null, t.plusHours(1), t, null, t.plusHours(2), t.plusHours(1))) {
+            ProgressNote note = new ProgressNote();
+            note.setAdmission(admission);
+            note.setCreatedAt(createdAt);
+            notes.add(note);
+        }
+        List<ProgressNote> saved = progressNoteRepository.saveAll(notes);
+
+        // createdAt desc nulls last, id desc
+        List<Long> expected = saved.stream()
+                .sorted(Comparator.comparing(ProgressNote::getCreatedAt, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                        .thenComparing(ProgressNote::getId)
+                        .reversed())
+                .map(ProgressNote::getId)
+                .toList();
+
+        for (int limit = 1; limit <= 8; limit++) {
+            int pageSize = limit;
+            List<Long> walked = walk(after -> progressNoteService.getNotesPage(admission.getId(), pageSize, after), ProgressNote::getId, limit);
+            assertThat(walked).as("limit %d", limit).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void admissionsPageThroughUndatedAdmissionsLast() {
+        Patient patient = register("5000002");
+        List<Admission> admissions = new ArrayList<>(admissionService.getAdmissionsForPatient(patient));
+        LocalDate day = LocalDate.of(2025, 6, 1);
+        int n = 0;
+        for (LocalDate admittedOn : Arrays.asList(day, null, day.plusDays(3), day, null)) {
+            Admission past = new Admission();
+            past.setPatient(patient);
+            past.setActive(false);
+            past.setAdmittedOn(admittedOn);
+            past.setBhtNumber("TEST-PAGING-" + n++);
+            admissions.add(admissionRepository.save(past));
+        }
+
+        List<Long> expected = admissions.stream()
+                .sorted(Comparator.comparing(Admission::getAdmittedOn, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+                        .thenComparing(Admission::getId)
+                        .reversed())
+                .map(Admission::getId)
+                .toList();
+
+        for (int limit = 1; limit <= 7; limit++) {
+            int pageSize = limit;
+            List<Long> walked = walk(after -> admissionService.getAdmissionsPage(patient, pageSize, after), Admission::getId, limit);
+            assertThat(walked).as("limit %d", limit).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void cursorsRoundTripIncludingNullSortKeys() {
+        CursorPage.Cursor dated = CursorPage.decodeCursor(CursorPage.encodeCursor(LocalDate.of(2026, 1, 2), 42L));
+        assertThat(dated).isEqualTo(new CursorPage.Cursor("2026-01-02", 42L));
+
+        CursorPage.Cursor undated = CursorPage.decodeCursor(CursorPage.encodeCursor(null, 7L));
+        assertThat(undated).isEqualTo(new CursorPage.Cursor(null, 7L));
+
+        assertThatThrownBy(() -> CursorPage.decodeCursor("not a cursor")).hasMessageContaining("Invalid cursor");
+    }
+
+    // Follows nextCursor to the end; every page but the last is full
+    private static <T> List<Long> walk(Function<String, CursorPage<T>> pages, Function<T, Long> idOf, int limit) {
+        List<Long> ids = new ArrayList<>();
+        String after = null;
+        do {
+            CursorPage<T> page = pages.apply(after);
+            if (page.getNextCursor() != null) {
+                assertThat(page.getItems()).hasSize(limit);
+            }
+            page.getItems().forEach(item -> ids.add(idOf.apply(item)));
+            after = page.getNextCursor();
+        } while (after != null);
+        return ids;
+    }
+
+    private Patient register(String phn) {
+        PatientCreateRequest request = new PatientCreateRequest();
+        request.setPhn(phn);
+        request.setName("Paging Test");
+        request.setWardNumber("7");
+        return patientService.createPatient(request);
+    }
+}
@@ -0,0 +1,131 @@
+package com.peradeniya.renal.service.bht;
+
+import com.peradeniya.renal.config.IdAllocationDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BhtSequenceTest {
+
+    private static final String FORMAT = "BHT-{ward}-{year}-{seq}";
+
+    private IdAllocationDataSource idAllocationDataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:bht-" + UUID.randomUUID() + ";MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table bht_counter (counter_key varchar(150) primary key, last_value bigint not null)");
+        idAllocationDataSource = mock(IdAllocationDataSource.class);
+        when(idAllocationDataSource.dataSource()).thenReturn(dataSource);
+    }
+
+    @Test
+    void formatsWardYearAndPaddedSequence() {
+        BhtSequence sequence = sequence(20);
+        assertThat(sequence.next("Renal", "12", 2026)).isEqualTo("BHT-12-2026-00001");
+        assertThat(sequence.next("Renal", "12", 2026)).isEqualTo("BHT-12-2026-00002");
+        assertThat(sequence.next("Renal", "12", 2027)).isEqualTo("BHT-12-2027-00001");
+        assertThat(sequence.next("Renal ward", null, 2026)).isEqualTo("BHT-RENALWARD-2026-00001");
+        assertThat(sequence.next("--", " ", 2026)).isEqualTo("BHT-GEN-2026-00001");
+        assertThat(sequence.next(null, null, 2026)).isEqualTo("BHT-GEN-2026-00002");
+    }
+
+    @Test
+    void rejectsFormatsThatWouldRepeatNumbers() {
+        assertThatThrownBy(() -> new BhtSequence(idAllocationDataSource, 20, "BHT-{ward}-{seq}", 5, "gen"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{year}");
+        assertThatThrownBy(() -> new BhtSequence(idAllocationDataSource, 20, FORMAT, 5, "--"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void wardsThatPrintAlikeShareOneSequence() {
+        BhtSequence sequence = sequence(20);
+        assertThat(sequence.next(null, "icu-1", 2026)).isEqualTo("BHT-ICU1-2026-00001");
+        assertThat(sequence.next(null, "ICU 1", 2026)).isEqualTo("BHT-ICU1-2026-00002");
+        assertThat(sequence.next("ICU1", null, 2026)).isEqualTo("BHT-ICU1-2026-00003");
+    }
+
+    @Test
+    void numbersRunOnAcrossBlocks() {
+        BhtSequence sequence = sequence(3);
+        for (int i = 1; i <= 10; i++) {
+            assertThat(sequence.next("Renal", "7", 2026)).isEqualTo(String.format("BHT-7-2026-%05d", i));
+        }
+        assertThat(lastReserved("7/2026")).isEqualTo(12);
+    }
+
+    @Test
+    void restartLeavesAGapInsteadOfADuplicate() {
+        BhtSequence before = sequence(5);
+        assertThat(before.next("Renal", "7", 2026)).isEqualTo("BHT-7-2026-00001");
+        assertThat(before.next("Renal", "7", 2026)).isEqualTo("BHT-7-2026-00002");
+
+        BhtSequence after = sequence(5);
+        assertThat(after.next("Renal", "7", 2026)).isEqualTo("BHT-7-2026-00006");
+    }
+
+    @Test
+    void nodesRacingOnOneWardNeverShareANumber() throws Exception {
+        List<BhtSequence> nodes = List.of(sequence(4), sequence(4), sequence(7));
+        int threads = 9;
+        int perThread = 60;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<String>>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                BhtSequence node = nodes.get(t % nodes.size());
+                Callable<List<String>> task = () -> {
+                    start.await();
+                    List<String> numbers = new ArrayList<>();
+                    for (int i = 0; i < perThread; i++) {
+                        numbers.add(node.next("Renal", "7", 2026));
+                    }
+                    return numbers;
+                };
+                results.add(pool.submit(task));
+            }
+            start.countDown();
+
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> result : results) {
+                for (String number : result.get()) {
+                    assertThat(all.add(number)).as("duplicate %s", number).isTrue();
+                }
+            }
+            assertThat(all).hasSize(threads * perThread);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private BhtSequence sequence(int blockSize) {
+        return new BhtSequence(idAllocationDataSource, blockSize, FORMAT, 5, "gen");
+    }
+
+    private long lastReserved(String counterKey) {
+        return jdbcTemplate.queryForObject("select last_value from bht_counter where counter_key = ?", Long.class, counterKey);
+    }
+}
@@ -0,0 +1,139 @@
+package com.peradeniya.renal.service.census;
+
+import com.peradeniya.renal.dto.WardCensusResponse;
+import com.peradeniya.renal.model.Admission;
+import com.peradeniya.renal.repository.AdmissionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WardCensusTest {
+
+    private AdmissionRepository admissionRepository;
+    private SimpleMeterRegistry meterRegistry;
+    private WardCensus census;
+
+    @BeforeEach
+    void setUp() {
+        admissionRepository = mock(AdmissionRepository.class);
+        meterRegistry = new SimpleMeterRegistry();
+        census = new WardCensus(admissionRepository, meterRegistry, 5, "renal:3");
+    }
+
+    @Test
+    void bedIdsAreNormalized() {
+        assertThat(WardCensus.bedNumber("07")).isEqualTo(7);
+        assertThat(WardCensus.bedNumber(" 12 ")).isEqualTo(12);
+        assertThat(WardCensus.bedNumber("0")).isNull();
+        assertThat(WardCensus.bedNumber("A1")).isNull();
+        assertThat(WardCensus.bedNumber(null)).isNull();
+        assertThat(WardCensus.bedKey("007")).isEqualTo("7");
+        assertThat(WardCensus.bedKey(" icu 2")).isEqualTo("ICU2");
+    }
+
+    @Test
+    void loadFillsTheBitmapFromActiveAdmissions() {
+        when(admissionRepository.findActiveBedAssignments()).thenReturn(List.of(
+                new BedAssignment(1L, "Renal", "7", "1"),
+                new BedAssignment(2L, "Renal", "7", "03"),
+                new BedAssignment(3L, "Renal", " 7 ", null),
+                new BedAssignment(4L, "Renal", null, "2")));
+        census.load();
+
+        WardCensusResponse ward7 = census.census("7");
+        assertThat(ward7.getCapacity()).isEqualTo(5);
+        assertThat(ward7.getOccupied()).isEqualTo(2);
+        assertThat(ward7.getFree()).isEqualTo(3);
+        assertThat(ward7.getFirstFreeBed()).isEqualTo(2);
+        assertThat(ward7.getFreeBeds()).containsExactly(2, 4, 5);
+        assertThat(ward7.getUnassignedAdmissions()).containsExactly(3L);
+
+        WardCensusResponse renal = census.census("RENAL");
+        assertThat(renal.getCapacity()).isEqualTo(3);
+        assertThat(renal.getFreeBeds()).containsExactly(1, 3);
+
+        assertThat(meterRegistry.get("renal.ward.beds.occupied").tag("ward", "7").gauge().value()).isEqualTo(2);
+        assertThat(meterRegistry.get("renal.ward.admissions.active").tag("ward", "7").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void lettersKeepBedsApartOutsideTheBitmap() {
+        census.load();
+        census.admit(admission(1L, "3", "A1"));
+        census.admit(admission(2L, "3", "b1"));
+        census.admit(admission(3L, "3", "1"));
+
+        WardCensusResponse ward = census.census("3");
+        assertThat(ward.getOccupied()).isEqualTo(1);
+        assertThat(ward.getBeds()).extracting(WardCensusResponse.BedOccupancy::getAdmissionId)
+                .containsExactly(3L, 1L, 2L);
+
+        census.discharge(1L);
+        assertThat(census.census("3").getBeds()).extracting(WardCensusResponse.BedOccupancy::getBedId)
+                .containsExactly("1", "b1");
+    }
+
+    @Test
+    void newerAdmissionTakesAHeldBedAndDischargeFreesIt() {
+        census.load();
+        census.admit(admission(1L, "3", "2"));
+        census.admit(admission(2L, "3", "02"));
+
+        WardCensusResponse ward = census.census("3");
+        assertThat(ward.getOccupied()).isEqualTo(1);
+        assertThat(ward.getBeds()).extracting(WardCensusResponse.BedOccupancy::getAdmissionId).containsExactly(2L);
+        assertThat(ward.getUnassignedAdmissions()).containsExactly(1L);
+
+        census.discharge(2L);
+        census.discharge(1L);
+        ward = census.census("3");
+        assertThat(ward.getOccupied()).isZero();
+        assertThat(ward.getFreeBeds()).containsExactly(1, 2, 3, 4, 5);
+        assertThat(ward.getUnassignedAdmissions()).isEmpty();
+    }
+
+    @Test
+    void bedsPastCapacityGrowTheWard() {
+        census.load();
+        census.admit(admission(1L, "3", "8"));
+
+        WardCensusResponse ward = census.census("3");
+        assertThat(ward.getCapacity()).isEqualTo(8);
+        assertThat(ward.getFreeBeds()).containsExactly(1, 2, 3, 4, 5, 6, 7);
+        assertThat(ward.getFirstFreeBed()).isEqualTo(1);
+    }
+
+    @Test
+    void changesCommittedDuringTheLoadAreReplayedOnTopOfIt() {
+        // The load query sees admission 1 and 2 active, while 1 is discharged and 3 admitted before it returns
+        when(admissionRepository.findActiveBedAssignments()).thenAnswer(invocation -> {
+            census.discharge(1L);
+            census.admit(admission(3L, "3", "4"));
+            return List.of(new BedAssignment(1L, null, "3", "1"), new BedAssignment(2L, null, "3", "2"));
+        });
+        census.load();
+
+        WardCensusResponse ward = census.census("3");
+        assertThat(ward.getBeds()).extracting(WardCensusResponse.BedOccupancy::getAdmissionId).containsExactly(2L, 3L);
+        assertThat(ward.getFreeBeds()).containsExactly(1, 3, 5);
+
+        // Once loaded, changes apply straight away
+        census.discharge(2L);
+        assertThat(census.census("3").getFreeBeds()).containsExactly(1, 2, 3, 5);
+    }
+
+    private static Admission admission(Long id, String wardNumber, String bedId) {
+        return Admission.builder()
+                .id(id)
+                .ward("Ward " + wardNumber)
+                .wardNumber(wardNumber)
+                .bedId(bedId)
+                .build();
+    }
+}
@@ -0,0 +1,71 @@
+package com.peradeniya.renal.service.search;
+
+import com.peradeniya.renal.dto.PatientSearchResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PatientSearchIndexTest {
+
+    private PatientSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new PatientSearchIndex(null);
+        index.add(new PatientSearchResult(1L, "1001", "Nimal Perera", "901234567V", "077-123 4567"));
+        index.add(new PatientSearchResult(2L, "1002", "Kamal Perera", "199012345678", "0712223334"));
+        index.add(new PatientSearchResult(3L, "1003", "Nimali Fernando", null, "0719998887"));
+        index.add(new PatientSearchResult(4L, "1004", "Sunil Silva", "851112223V", null));
+    }
+
+    @Test
+    void exactMatchesRankAbovePrefixMatches() {
+        assertThat(ids(index.search("nimal", 10))).containsExactly(1L, 3L);
+    }
+
+    @Test
+    void everyQueryTokenMustMatch() {
+        assertThat(ids(index.search("nimal pere", 10))).containsExactly(1L);
+        assertThat(ids(index.search("perera", 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("nimal silva", 10)).isEmpty();
+    }
+
+    @Test
+    void typosAreMatchedWhenNothingElseIs() {
+        assertThat(ids(index.search("perrera", 10))).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(ids(index.search("fernnado", 10))).containsExactly(3L);
+        assertThat(ids(index.search("kamal perrera", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void phoneNumbersMatchHoweverTheyAreFormatted() {
+        assertThat(ids(index.search("0771234567", 10))).containsExactly(1L);
+        assertThat(ids(index.search("077 123 4567", 10))).containsExactly(1L);
+        assertThat(ids(index.search("077-1234567", 10))).containsExactly(1L);
+        assertThat(ids(index.search("077 123", 10))).containsExactly(1L);
+    }
+
+    @Test
+    void nicMatchesByPrefixCaseInsensitively() {
+        assertThat(ids(index.search("901234567v", 10))).containsExactly(1L);
+        assertThat(ids(index.search("1990 1234", 10))).containsExactly(2L);
+    }
+
+    @Test
+    void digitsAreNotMatchedFuzzily() {
+        assertThat(index.search("0771234568", 10)).isEmpty();
+    }
+
+    @Test
+    void limitKeepsTheBestResults() {
+        assertThat(ids(index.search("nimal", 1))).containsExactly(1L);
+        assertThat(index.search("   ", 10)).isEmpty();
+    }
+
+    private static List<Long> ids(List<PatientSearchResult> results) {
+        return results.stream().map(PatientSearchResult::getId).toList();
+    }
+}
@@ -0,0 +1,112 @@
+package com.peradeniya.renal.service.vitals;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VitalsChunkTest {
+
+    private record Row(long epochSecond, double[] values) {
+    }
+
+    @Test
+    void roundTripsHourlyReadingsWithGaps() {
+        List<Row> rows = new ArrayList<>();
+        long ts = 1_760_000_000L;
+        for (int i = 0; i < VitalsChunk.MAX_ROWS; i++) {
+            ts += 3600 + (i % 5 == 0 ? 17 : 0);
+            double[] values = row(36.5 + (i % 7) / 10.0, 72.25 - i / 100.0, 120 + i % 30, 80 - i % 10, 70 + i % 20,
+                    i % 3 == 0 ? Double.NaN : 250, 100 + i, -150 + i, i % 4 == 0 ? Double.NaN : -(i * 3));
+            rows.add(new Row(ts, values));
+        }
+        assertRoundTrip(rows);
+    }
+
+    @Test
+    void roundTripsDecimalsBeyondTwoPlacesAndOddDoubles() {
+        List<Row> rows = List.of(
+                new Row(100, row(37.123456, 70.0, 120, 80, 60, 0, 0, 0, 0)),
+                new Row(100, row(-0.0, 0.1 + 0.2, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN)),
+                new Row(50, row(37.12, 1e-9, 0, 0, 0, 0, 0, 0, 0)),
+                new Row(4_000_000_000L, row(Double.MAX_VALUE, Double.MIN_VALUE, -1, -1, -1, -1, -1, -1, -1)),
+                new Row(-86_400, row(Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Integer.MAX_VALUE, Integer.MIN_VALUE,
+                        0, 0, 0, 0, 0)),
+                new Row(0, row(36.6, 72.5, 110, 70, 88, 500, 300, 0, 200)));
+        assertRoundTrip(rows);
+    }
+
+    @Test
+    void roundTripsRandomReadings() {
+        Random random = new Random(42);
+        for (int chunk = 0; chunk < 50; chunk++) {
+            List<Row> rows = new ArrayList<>();
+            long ts = random.nextInt(2_000_000_000);
+            int count = 1 + random.nextInt(VitalsChunk.MAX_ROWS);
+            for (int i = 0; i < count; i++) {
+                ts += random.nextInt(7200) - 600;
+                double[] values = new double[VitalSign.COUNT];
+                for (VitalSign sign : VitalSign.values()) {
+                    double value;
+                    if (random.nextInt(5) == 0) {
+                        value = Double.NaN;
+                    } else if (!sign.isDecimal()) {
+                        value = random.nextInt(4000) - 2000;
+                    } else if (random.nextBoolean()) {
+                        value = Math.round(random.nextDouble() * 20000) / 100.0;
+                    } else {
+                        value = random.nextDouble() * 200;
+                    }
+                    values[sign.ordinal()] = value;
+                }
+                rows.add(new Row(ts, values));
+            }
+            assertRoundTrip(rows);
+        }
+    }
+
+    @Test
+    void tracksRowsRangeAndFullness() {
+        VitalsChunk chunk = new VitalsChunk();
+        assertThat(chunk.overlaps(Long.MIN_VALUE, Long.MAX_VALUE)).isFalse();
+        for (int i = 0; i < VitalsChunk.MAX_ROWS; i++) {
+            assertThat(chunk.isFull()).isFalse();
+            chunk.append(1000 + i * 60L, row(36.6, 70, 120, 80, 70, 0, 0, 0, 0));
+        }
+        assertThat(chunk.isFull()).isTrue();
+        assertThat(chunk.rows()).isEqualTo(VitalsChunk.MAX_ROWS);
+        assertThat(chunk.overlaps(0, 999)).isFalse();
+        assertThat(chunk.overlaps(0, 1000)).isTrue();
+        assertThat(chunk.overlaps(1000 + (VitalsChunk.MAX_ROWS - 1) * 60L, Long.MAX_VALUE)).isTrue();
+        assertThat(chunk.overlaps(1000 + (VitalsChunk.MAX_ROWS - 1) * 60L + 1, Long.MAX_VALUE)).isFalse();
+        // Regular readings with repeated values take a fraction of the 8 bytes per field a raw row needs
+        assertThat(chunk.encodedBytes()).isLessThan(VitalsChunk.MAX_ROWS * (1L + VitalSign.COUNT) * 8 / 4);
+    }
+
+    private static void assertRoundTrip(List<Row> rows) {
+        VitalsChunk chunk = new VitalsChunk();
+        rows.forEach(r -> chunk.append(r.epochSecond(), r.values()));
+        chunk.seal();
+
+        List<Row> decoded = new ArrayList<>();
+        chunk.forEach((epochSecond, values) -> decoded.add(new Row(epochSecond, values.clone())));
+
+        assertThat(decoded).hasSameSizeAs(rows);
+        for (int i = 0; i < rows.size(); i++) {
+            assertThat(decoded.get(i).epochSecond()).as("timestamp of row %d", i).isEqualTo(rows.get(i).epochSecond());
+            for (int s = 0; s < VitalSign.COUNT; s++) {
+                // Bit for bit, so -0.0 and NaN have to come back exactly too
+                assertThat(Double.doubleToRawLongBits(decoded.get(i).values()[s]))
+                        .as("%s of row %d", VitalSign.values()[s], i)
+                        .isEqualTo(Double.doubleToRawLongBits(rows.get(i).values()[s]));
+            }
+        }
+    }
+
+    private static double[] row(double... values) {
+        return values;
+    }
+}